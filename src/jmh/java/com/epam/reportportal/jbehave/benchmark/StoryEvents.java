@@ -0,0 +1,204 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.benchmark;
+
+import org.jbehave.core.model.ExamplesTable;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.jbehave.core.parsers.StoryParser;
+import org.jbehave.core.reporters.StoryReporter;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A pre-built sequence of JBehave reporter callbacks. Stories are parsed once, so replaying the sequence measures reporter costs only.
+ */
+public class StoryEvents {
+	private static final StoryParser PARSER = new RegexStoryParser();
+	private static final String FAILED_STEP = "When a step fails";
+	private static final Throwable FAILURE = new IllegalStateException("A failed step");
+
+	private final List<Consumer<StoryReporter>> events = new ArrayList<>();
+
+	private StoryEvents() {
+	}
+
+	/**
+	 * A story with plain scenarios, each step passes.
+	 *
+	 * @param scenarios scenario number
+	 * @param steps     step number per scenario
+	 * @return event sequence
+	 */
+	@Nonnull
+	public static StoryEvents flat(int scenarios, int steps) {
+		StoryEvents result = new StoryEvents();
+		result.story(parse("flat", scenarios, steps, -1, 0), false);
+		return result;
+	}
+
+	/**
+	 * A story which includes a given story, which includes another given story and so on.
+	 *
+	 * @param depth given story nesting level
+	 * @param steps step number per scenario
+	 * @return event sequence
+	 */
+	@Nonnull
+	public static StoryEvents givenStories(int depth, int steps) {
+		StoryEvents result = new StoryEvents();
+		result.nestedStory(0, depth, steps);
+		return result;
+	}
+
+	/**
+	 * A story with a single scenario and a wide examples table.
+	 *
+	 * @param rows    example row number
+	 * @param columns example column number
+	 * @param steps   step number per example row
+	 * @return event sequence
+	 */
+	@Nonnull
+	public static StoryEvents examples(int rows, int columns, int steps) {
+		StoryEvents result = new StoryEvents();
+		StringBuilder sb = new StringBuilder("Scenario: Examples scenario\n");
+		for (int i = 0; i < steps; i++) {
+			sb.append("Given a step number ").append(i).append(" with parameter <p").append(i % columns).append(">\n");
+		}
+		sb.append("\nExamples:\n|");
+		for (int c = 0; c < columns; c++) {
+			sb.append('p').append(c).append('|');
+		}
+		for (int r = 0; r < rows; r++) {
+			sb.append("\n|");
+			for (int c = 0; c < columns; c++) {
+				sb.append("value_").append(r).append('_').append(c).append('|');
+			}
+		}
+		sb.append('\n');
+		result.story(PARSER.parseStory(sb.toString(), "stories/examples.story"), false);
+		return result;
+	}
+
+	/**
+	 * A story where a step in the middle of each scenario fails, so the rest of the steps are not performed.
+	 *
+	 * @param scenarios scenario number
+	 * @param steps     step number per scenario
+	 * @return event sequence
+	 */
+	@Nonnull
+	public static StoryEvents failures(int scenarios, int steps) {
+		StoryEvents result = new StoryEvents();
+		result.story(parse("failures", scenarios, steps, steps / 2, 0), false);
+		return result;
+	}
+
+	/**
+	 * Replays the sequence against the given reporter.
+	 *
+	 * @param reporter a reporter to call
+	 */
+	public void replay(@Nonnull StoryReporter reporter) {
+		for (Consumer<StoryReporter> event : events) {
+			event.accept(reporter);
+		}
+	}
+
+	/**
+	 * @return number of callbacks in the sequence
+	 */
+	public int size() {
+		return events.size();
+	}
+
+	@Nonnull
+	private static Story parse(@Nonnull String name, int scenarios, int steps, int failedStep, int level) {
+		StringBuilder sb = new StringBuilder();
+		for (int s = 0; s < scenarios; s++) {
+			sb.append("Scenario: ").append(name).append(" scenario ").append(s).append('\n');
+			for (int i = 0; i < steps; i++) {
+				if (i == failedStep) {
+					sb.append(FAILED_STEP).append('\n');
+				} else {
+					sb.append("Given a step number ").append(i).append('\n');
+				}
+			}
+			sb.append('\n');
+		}
+		return PARSER.parseStory(sb.toString(), "stories/" + name + "_" + level + ".story");
+	}
+
+	private void nestedStory(int level, int depth, int steps) {
+		Story story = parse("given", 1, steps, -1, level);
+		boolean given = level > 0;
+		events.add(r -> r.beforeStory(story, given));
+		if (level < depth) {
+			nestedStory(level + 1, depth, steps);
+		}
+		story.getScenarios().forEach(this::scenario);
+		events.add(r -> r.afterStory(given));
+	}
+
+	private void story(@Nonnull Story story, boolean given) {
+		events.add(r -> r.beforeStory(story, given));
+		story.getScenarios().forEach(this::scenario);
+		events.add(r -> r.afterStory(given));
+	}
+
+	private void scenario(@Nonnull Scenario scenario) {
+		events.add(r -> r.beforeScenario(scenario));
+		ExamplesTable table = scenario.getExamplesTable();
+		List<String> steps = scenario.getSteps();
+		if (table != null && table.getRowCount() > 0) {
+			events.add(r -> r.beforeExamples(steps, table));
+			for (int i = 0; i < table.getRowCount(); i++) {
+				Map<String, String> row = table.getRow(i);
+				int index = i;
+				events.add(r -> r.example(row, index));
+				steps(steps);
+			}
+			events.add(StoryReporter::afterExamples);
+		} else {
+			steps(steps);
+		}
+		events.add(StoryReporter::afterScenario);
+	}
+
+	private void steps(@Nonnull List<String> steps) {
+		boolean failed = false;
+		for (String step : steps) {
+			if (failed) {
+				events.add(r -> r.notPerformed(step));
+				continue;
+			}
+			events.add(r -> r.beforeStep(step));
+			if (FAILED_STEP.equals(step)) {
+				failed = true;
+				events.add(r -> r.failed(step, FAILURE));
+			} else {
+				events.add(r -> r.successful(step));
+			}
+		}
+	}
+}
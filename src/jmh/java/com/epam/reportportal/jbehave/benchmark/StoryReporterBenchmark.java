@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.benchmark;
+
+import com.epam.reportportal.jbehave.ReportPortalScenarioStoryReporter;
+import com.epam.reportportal.jbehave.ReportPortalStepStoryReporter;
+import com.epam.reportportal.jbehave.ReportPortalStoryReporter;
+import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.tree.TestItemTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Replays typical JBehave callback sequences against the story reporters. The reporters are backed by a no-op {@link Launch}, so the
+ * results show the agent's own costs: tree navigation, naming, code references and request building. Run with
+ * <code>./gradlew jmh</code>, the task adds GC profiler to report allocation rate along with throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StoryReporterBenchmark {
+	private static final Supplier<Launch> LAUNCH = () -> Launch.NOOP_LAUNCH;
+
+	public enum Shape {
+		FLAT {
+			@Override
+			StoryEvents create() {
+				return StoryEvents.flat(20, 10);
+			}
+		},
+		GIVEN_STORIES {
+			@Override
+			StoryEvents create() {
+				return StoryEvents.givenStories(10, 10);
+			}
+		},
+		EXAMPLES {
+			@Override
+			StoryEvents create() {
+				return StoryEvents.examples(200, 10, 5);
+			}
+		},
+		FAILURES {
+			@Override
+			StoryEvents create() {
+				return StoryEvents.failures(20, 10);
+			}
+		};
+
+		abstract StoryEvents create();
+	}
+
+	public enum ReporterType {
+		STEP {
+			@Override
+			ReportPortalStoryReporter create(TestItemTree tree) {
+				return new ReportPortalStepStoryReporter(LAUNCH, tree);
+			}
+		},
+		SCENARIO {
+			@Override
+			ReportPortalStoryReporter create(TestItemTree tree) {
+				return new ReportPortalScenarioStoryReporter(LAUNCH, tree);
+			}
+		};
+
+		abstract ReportPortalStoryReporter create(TestItemTree tree);
+	}
+
+	@Param({ "FLAT", "GIVEN_STORIES", "EXAMPLES", "FAILURES" })
+	public Shape shape;
+
+	@Param({ "STEP", "SCENARIO" })
+	public ReporterType reporter;
+
+	private StoryEvents events;
+
+	@Setup
+	public void setup() {
+		events = shape.create();
+	}
+
+	@Benchmark
+	public TestItemTree replay() {
+		TestItemTree tree = new TestItemTree();
+		events.replay(reporter.create(tree));
+		return tree;
+	}
+}
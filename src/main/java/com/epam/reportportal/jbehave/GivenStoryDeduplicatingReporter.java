@@ -0,0 +1,216 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave;
+
+import org.jbehave.core.model.ExamplesTable;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.model.StoryDuration;
+import org.jbehave.core.reporters.DelegatingStoryReporter;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A story reporter which reports a given story in full only at its first run in a launch. Later runs of the same given story are
+ * buffered, and if they pass they are reported as a single item by {@link ReportPortalStoryReporter#reportGivenStoryReference(Story)}.
+ * If a later run does not pass, E.G. a step fails, is pending, ignored or not performed, a scenario is not allowed or the story is cancelled,
+ * all buffered events are replayed, so the given story is reported in full with its real statuses.
+ * <p>
+ * Since events of a buffered given story are replayed after it ends, item start and end times of such stories are replay times.
+ */
+public class GivenStoryDeduplicatingReporter extends DelegatingStoryReporter {
+
+	private final ReportPortalStoryReporter reporter;
+	private final Set<String> reportedStories;
+
+	private List<Runnable> buffer;
+	private Story bufferedStory;
+	private int depth;
+	private boolean notPassed;
+
+	/**
+	 * @param storyReporter        a reporter to pass events to
+	 * @param reportedGivenStories a launch-wide set of paths of given stories which were already reported in full, should be thread-safe
+	 */
+	public GivenStoryDeduplicatingReporter(@Nonnull final ReportPortalStoryReporter storyReporter,
+			@Nonnull final Set<String> reportedGivenStories) {
+		super(storyReporter);
+		reporter = storyReporter;
+		reportedStories = reportedGivenStories;
+	}
+
+	/**
+	 * @return a reporter which receives events
+	 */
+	@Nonnull
+	public ReportPortalStoryReporter getReporter() {
+		return reporter;
+	}
+
+	private boolean buffered(@Nonnull final Runnable event) {
+		if (buffer == null) {
+			return false;
+		}
+		buffer.add(event);
+		return true;
+	}
+
+	@Override
+	public void beforeStory(Story story, boolean givenStory) {
+		if (buffered(() -> super.beforeStory(story, givenStory))) {
+			if (givenStory) {
+				depth++;
+			}
+			return;
+		}
+		if (givenStory && !reportedStories.add(story.getPath())) {
+			buffer = new ArrayList<>();
+			buffer.add(() -> super.beforeStory(story, true));
+			bufferedStory = story;
+			depth = 1;
+			notPassed = false;
+			return;
+		}
+		super.beforeStory(story, givenStory);
+	}
+
+	@Override
+	public void afterStory(boolean givenStory) {
+		if (!buffered(() -> super.afterStory(givenStory))) {
+			super.afterStory(givenStory);
+			return;
+		}
+		if (givenStory && --depth <= 0) {
+			List<Runnable> events = buffer;
+			Story story = bufferedStory;
+			buffer = null;
+			bufferedStory = null;
+			if (notPassed) {
+				events.forEach(Runnable::run);
+			} else {
+				reporter.reportGivenStoryReference(story);
+			}
+		}
+	}
+
+	@Override
+	public void storyCancelled(Story story, StoryDuration storyDuration) {
+		if (buffered(() -> super.storyCancelled(story, storyDuration))) {
+			notPassed = true;
+			return;
+		}
+		super.storyCancelled(story, storyDuration);
+	}
+
+	@Override
+	public void beforeScenario(Scenario scenario) {
+		if (!buffered(() -> super.beforeScenario(scenario))) {
+			super.beforeScenario(scenario);
+		}
+	}
+
+	@Override
+	public void scenarioNotAllowed(Scenario scenario, String filter) {
+		if (buffered(() -> super.scenarioNotAllowed(scenario, filter))) {
+			notPassed = true;
+			return;
+		}
+		super.scenarioNotAllowed(scenario, filter);
+	}
+
+	@Override
+	public void afterScenario() {
+		if (!buffered(super::afterScenario)) {
+			super.afterScenario();
+		}
+	}
+
+	@Override
+	public void beforeExamples(List<String> steps, ExamplesTable table) {
+		if (!buffered(() -> super.beforeExamples(steps, table))) {
+			super.beforeExamples(steps, table);
+		}
+	}
+
+	@Override
+	public void example(Map<String, String> tableRow, int exampleIndex) {
+		if (!buffered(() -> super.example(tableRow, exampleIndex))) {
+			super.example(tableRow, exampleIndex);
+		}
+	}
+
+	@Override
+	public void afterExamples() {
+		if (!buffered(super::afterExamples)) {
+			super.afterExamples();
+		}
+	}
+
+	@Override
+	public void beforeStep(String step) {
+		if (!buffered(() -> super.beforeStep(step))) {
+			super.beforeStep(step);
+		}
+	}
+
+	@Override
+	public void successful(String step) {
+		if (!buffered(() -> super.successful(step))) {
+			super.successful(step);
+		}
+	}
+
+	@Override
+	public void ignorable(String step) {
+		if (buffered(() -> super.ignorable(step))) {
+			notPassed = true;
+			return;
+		}
+		super.ignorable(step);
+	}
+
+	@Override
+	public void pending(String step) {
+		if (buffered(() -> super.pending(step))) {
+			notPassed = true;
+			return;
+		}
+		super.pending(step);
+	}
+
+	@Override
+	public void notPerformed(String step) {
+		if (buffered(() -> super.notPerformed(step))) {
+			notPassed = true;
+			return;
+		}
+		super.notPerformed(step);
+	}
+
+	@Override
+	public void failed(String step, Throwable cause) {
+		if (buffered(() -> super.failed(step, cause))) {
+			notPassed = true;
+			return;
+		}
+		super.failed(step, cause);
+	}
+}
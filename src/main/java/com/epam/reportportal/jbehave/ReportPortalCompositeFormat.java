@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.jbehave.util.ReportingCache;
+import org.jbehave.core.reporters.DelegatingStoryReporter;
+import org.jbehave.core.reporters.FilePrintStreamFactory;
+import org.jbehave.core.reporters.Format;
+import org.jbehave.core.reporters.StoryReporter;
+import org.jbehave.core.reporters.StoryReporterBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A convenience format to report the same JBehave run into several launches of different shapes, E.G. with
+ * {@link ReportPortalStepFormat} and {@link ReportPortalScenarioFormat} at once, with a shared {@link ReportingCache}. The format only
+ * saves recalculating code references and test case IDs for each launch: it still creates a full story reporter of every format and
+ * passes each event to all of them with a {@link DelegatingStoryReporter}, so each reporter keeps its own test item tree and sends its
+ * own requests, as if the formats were configured separately.
+ * <pre>{@code
+ * new StoryReporterBuilder().withFormats(new ReportPortalCompositeFormat(new ReportPortalStepFormat(), new ReportPortalScenarioFormat()));
+ * }</pre>
+ * {@link ReportPortalFormat#getCurrentStoryReporter()} returns the reporter of the last format.
+ */
+public class ReportPortalCompositeFormat extends Format {
+
+	private final List<ReportPortalFormat> formats;
+	private final ReportingCache cache = new ReportingCache();
+
+	/**
+	 * @param reportPortalFormats formats to report with, each of them reports into its own launch
+	 */
+	public ReportPortalCompositeFormat(@Nonnull final ReportPortalFormat... reportPortalFormats) {
+		super("REPORT_PORTAL_COMPOSITE");
+		if (reportPortalFormats.length == 0) {
+			throw new IllegalArgumentException("At least one format should be specified");
+		}
+		formats = Collections.unmodifiableList(Arrays.asList(reportPortalFormats));
+		formats.forEach(f -> f.setReportingCache(cache));
+	}
+
+	/**
+	 * Creates story reporters of all formats and wraps them into a {@link DelegatingStoryReporter}.
+	 *
+	 * @param factory              a print stream factory
+	 * @param storyReporterBuilder a story reporter builder
+	 * @return a reporter which passes events to the reporters of all formats
+	 */
+	@Override
+	public StoryReporter createStoryReporter(FilePrintStreamFactory factory, StoryReporterBuilder storyReporterBuilder) {
+		StoryReporter[] reporters = formats.stream()
+				.map(f -> f.createStoryReporter(factory, storyReporterBuilder))
+				.toArray(StoryReporter[]::new);
+		return new DelegatingStoryReporter(reporters);
+	}
+
+	/**
+	 * @return formats to report with
+	 */
+	@Nonnull
+	public List<ReportPortalFormat> getFormats() {
+		return formats;
+	}
+
+	/**
+	 * @return a cache shared by the formats
+	 */
+	@Nonnull
+	public ReportingCache getReportingCache() {
+		return cache;
+	}
+}
@@ -15,8 +15,19 @@
  */
 package com.epam.reportportal.jbehave;
 
+import com.epam.reportportal.jbehave.attachment.AttachmentCache;
+import com.epam.reportportal.jbehave.failure.FailureClusterer;
+import com.epam.reportportal.jbehave.log.LogRateLimiter;
+import com.epam.reportportal.jbehave.log.StackTraceRenderer;
+import com.epam.reportportal.jbehave.log.StepWatchdog;
+import com.epam.reportportal.jbehave.rerun.RerunManifest;
+import com.epam.reportportal.jbehave.sharding.DurationHistory;
+import com.epam.reportportal.jbehave.util.ItemIndex;
+import com.epam.reportportal.jbehave.util.ReportingCache;
 import com.epam.reportportal.listeners.ListenerParameters;
+import com.epam.reportportal.listeners.LogLevel;
 import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.LoggingContext;
 import com.epam.reportportal.service.ReportPortal;
 import com.epam.reportportal.service.tree.TestItemTree;
 import com.epam.reportportal.utils.MemoizingSupplier;
@@ -24,15 +35,31 @@ import com.epam.reportportal.utils.properties.SystemAttributesExtractor;
 import com.epam.ta.reportportal.ws.model.FinishExecutionRQ;
 import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
 import com.epam.ta.reportportal.ws.model.launch.StartLaunchRQ;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+import io.reactivex.Maybe;
+import io.reactivex.schedulers.Schedulers;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.model.ExamplesTable;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
 import org.jbehave.core.reporters.FilePrintStreamFactory;
 import org.jbehave.core.reporters.Format;
 import org.jbehave.core.reporters.StoryReporter;
 import org.jbehave.core.reporters.StoryReporterBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import static java.util.Optional.ofNullable;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
@@ -42,16 +69,37 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
  */
 public abstract class ReportPortalFormat extends Format {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportPortalFormat.class);
+	private static final String DROPPED_LAUNCH_LOGS_MESSAGE = "%d logs dropped by the launch log rate limit";
+
 	private static final ThreadLocal<ReportPortalFormat> INSTANCES = new InheritableThreadLocal<>();
 	private static final ThreadLocal<ReportPortalStoryReporter> STORY_REPORTERS = new InheritableThreadLocal<>();
 
 	private static final String SKIPPED_ISSUE_KEY = "skippedIssue";
 	private static final String AGENT_PROPERTIES_FILE = "agent.properties";
+	private static final int MIN_PLAN_CACHE_SIZE = 8192;
+	private static final int MAX_PLAN_CACHE_SIZE = 262144;
 
 	protected final MemoizingSupplier<Launch> launch;
 	protected final TestItemTree itemTree = new TestItemTree();
 	protected final ReportPortal rp;
 
+	private final Set<String> reportedGivenStories = ConcurrentHashMap.newKeySet();
+	private volatile boolean streamingExamples;
+	private volatile boolean leafCompaction;
+	private volatile ItemIndex itemIndex;
+	private volatile boolean givenStoryDeduplication;
+	private volatile DurationHistory durationHistory;
+	private volatile Path rerunManifest;
+	private volatile int stepLogCapacity;
+	private volatile int passedStepLogLines;
+	private volatile ReportingCache reportingCache;
+	private volatile AttachmentCache attachmentCache;
+	private volatile StackTraceRenderer stackTraceRenderer = StackTraceRenderer.DEFAULT;
+	private volatile LogRateLimiter logRateLimiter;
+	private volatile StepWatchdog stepWatchdog;
+	private volatile FailureClusterer failureClusterer;
+
 	/**
 	 * Creates an instance of the formatter class using specific {@link ReportPortal} reporter.
 	 *
@@ -68,9 +116,55 @@ public abstract class ReportPortalFormat extends Format {
 	 * Finishes a {@link Launch} passed in the method parameters
 	 */
 	protected void finishLaunch() {
+		ofNullable(stepWatchdog).ifPresent(StepWatchdog::close);
+		sendDroppedLogCount();
 		FinishExecutionRQ rq = new FinishExecutionRQ();
 		rq.setEndTime(Calendar.getInstance().getTime());
 		launch.get().finish(rq);
+		ofNullable(durationHistory).ifPresent(h -> {
+			try {
+				h.save();
+			} catch (IOException e) {
+				LOGGER.warn("Unable to save story duration history into file: " + h.getFile(), e);
+			}
+		});
+		ofNullable(rerunManifest).ifPresent(f -> {
+			try {
+				RerunManifest.fromTree(itemTree).write(f);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to write rerun manifest into file: " + f, e);
+			}
+		});
+		ofNullable(failureClusterer).ifPresent(c -> {
+			try {
+				c.writeSummary();
+			} catch (IOException e) {
+				LOGGER.warn("Unable to write failure cluster summary into file: " + c.getSummaryFile(), e);
+			}
+		});
+	}
+
+	/**
+	 * Reports a number of logs dropped by the launch log rate limit, if any, as a launch log. Logs dropped by item limits are reported to
+	 * their items, so the launch log is the only report of drops if item limits are disabled.
+	 *
+	 * @see #setLogRateLimiter(LogRateLimiter)
+	 */
+	protected void sendDroppedLogCount() {
+		long dropped = ofNullable(logRateLimiter).map(LogRateLimiter::getDroppedCount).orElse(0L);
+		if (dropped <= 0) {
+			return;
+		}
+		String message = String.format(DROPPED_LAUNCH_LOGS_MESSAGE, dropped);
+		LOGGER.warn(message);
+		ReportPortal.emitLaunchLog(launchUuid -> {
+			SaveLogRQ rq = new SaveLogRQ();
+			rq.setLaunchUuid(launchUuid);
+			rq.setLevel(LogLevel.WARN.name());
+			rq.setLogTime(Calendar.getInstance().getTime());
+			rq.setMessage(message);
+			return rq;
+		});
 	}
 
 	/**
@@ -145,13 +239,315 @@ public abstract class ReportPortalFormat extends Format {
 	@Override
 	public StoryReporter createStoryReporter(FilePrintStreamFactory factory, StoryReporterBuilder storyReporterBuilder) {
 		ReportPortalStoryReporter reporter = createReportPortalReporter(factory, storyReporterBuilder);
+		reporter.setStreamingExamples(streamingExamples);
+		reporter.setLeafCompaction(leafCompaction);
+		reporter.setDurationHistory(durationHistory);
+		reporter.setStepLogCapture(stepLogCapacity, passedStepLogLines);
+		reporter.setReportingCache(reportingCache);
+		reporter.setAttachmentCache(attachmentCache);
+		reporter.setStackTraceRenderer(stackTraceRenderer);
+		reporter.setLogRateLimiter(logRateLimiter);
+		reporter.setStepWatchdog(stepWatchdog);
+		reporter.setFailureClusterer(failureClusterer);
+		reporter.setItemIndex(itemIndex);
 		STORY_REPORTERS.set(reporter);
-		return reporter;
+		return givenStoryDeduplication ? new GivenStoryDeduplicatingReporter(reporter, reportedGivenStories) : reporter;
 	}
 
 	protected abstract ReportPortalStoryReporter createReportPortalReporter(FilePrintStreamFactory factory,
 			StoryReporterBuilder storyReporterBuilder);
 
+	/**
+	 * Enables or disables streaming examples mode for story reporters created by the format. Use the mode for stories with huge Examples
+	 * tables: finished example items are removed from the test item tree, so memory consumption does not grow with table size.
+	 *
+	 * @param enabled true to enable streaming examples mode
+	 * @see ReportPortalStoryReporter#setStreamingExamples(boolean)
+	 */
+	public void setStreamingExamples(boolean enabled) {
+		streamingExamples = enabled;
+	}
+
+	/**
+	 * Enables or disables leaf compaction for story reporters created by the format. Use the mode for long launches: finished item leaves
+	 * are replaced in the test item tree with compact copies, which keep resolved item IDs and statuses but not start and finish requests.
+	 *
+	 * @param enabled true to enable leaf compaction
+	 * @see ReportPortalStoryReporter#setLeafCompaction(boolean)
+	 */
+	public void setLeafCompaction(boolean enabled) {
+		leafCompaction = enabled;
+	}
+
+	/**
+	 * Enables or disables item indexing for story reporters created by the format. In the mode the format keeps an index of item leaves by
+	 * code reference and test case ID for {@link #findItemByCodeRef(String)} and {@link #findItemByTestCaseId(String)}. The index holds
+	 * the leaves strongly until they are released from the test item tree, so by default it grows with the launch. Enable the mode before
+	 * the run, items started before are not indexed.
+	 *
+	 * @param enabled true to enable item indexing
+	 * @see ItemIndex
+	 */
+	public void setItemIndexing(boolean enabled) {
+		itemIndex = enabled ? new ItemIndex() : null;
+	}
+
+	/**
+	 * @return true if streaming examples mode is enabled
+	 */
+	public boolean isStreamingExamples() {
+		return streamingExamples;
+	}
+
+	/**
+	 * Enables or disables given story deduplication. In the mode a given story is reported in full only at its first run in the launch,
+	 * later passed runs of the story are reported as single items without child items.
+	 *
+	 * @param enabled true to enable given story deduplication
+	 * @see GivenStoryDeduplicatingReporter
+	 */
+	public void setGivenStoryDeduplication(boolean enabled) {
+		givenStoryDeduplication = enabled;
+	}
+
+	/**
+	 * @return true if given story deduplication is enabled
+	 */
+	public boolean isGivenStoryDeduplication() {
+		return givenStoryDeduplication;
+	}
+
+	/**
+	 * Sets a history to record story durations into. The history is saved on launch finish and can be used to split stories between
+	 * nodes with {@link com.epam.reportportal.jbehave.sharding.StoryShards}.
+	 *
+	 * @param history story duration history or null to not record durations
+	 */
+	public void setDurationHistory(@Nullable final DurationHistory history) {
+		durationHistory = history;
+	}
+
+	/**
+	 * @return story duration history if set
+	 */
+	@Nonnull
+	public Optional<DurationHistory> getDurationHistory() {
+		return ofNullable(durationHistory);
+	}
+
+	/**
+	 * Sets a file to write a manifest of failed stories, scenarios and example rows into on launch finish.
+	 *
+	 * @param file a manifest file or null to not write the manifest
+	 * @see RerunManifest
+	 * @see com.epam.reportportal.jbehave.rerun.RerunStoryParser
+	 */
+	public void setRerunManifest(@Nullable final Path file) {
+		rerunManifest = file;
+	}
+
+	/**
+	 * Enables or disables step log capture for story reporters created by the format. Logs captured during a step are sent as a single
+	 * log entry on the step finish instead of one request per line.
+	 *
+	 * @param capacity        a maximum number of lines to keep per step, 0 to disable the capture
+	 * @param passedStepLines a number of last lines to send for not failed steps, 0 to drop their logs
+	 * @see ReportPortalStoryReporter#setStepLogCapture(int, int)
+	 * @see ReportPortalStoryReporter#captureLog(com.epam.reportportal.listeners.LogLevel, String)
+	 */
+	public void setStepLogCapture(int capacity, int passedStepLines) {
+		stepLogCapacity = capacity;
+		passedStepLogLines = passedStepLines;
+	}
+
+	/**
+	 * Sets a cache of code references and test case IDs for story reporters created by the format.
+	 *
+	 * @param cache a cache shared with other formats or null to calculate the values in each reporter
+	 * @see ReportPortalCompositeFormat
+	 */
+	public void setReportingCache(@Nullable final ReportingCache cache) {
+		reportingCache = cache;
+	}
+
+	private static long countItems(@Nonnull final Story story, boolean streaming) {
+		long count = 1;
+		for (Scenario scenario : story.getScenarios()) {
+			int steps = scenario.getSteps().size();
+			ExamplesTable table = scenario.getExamplesTable();
+			int rows = table == null ? 0 : table.getRowCount();
+			count += 1 + (rows == 0 ? steps : streaming ? 0 : (long) rows * (steps + 1));
+		}
+		return count;
+	}
+
+	/**
+	 * Creates a story reporter which only plans stories with {@link ReportPortalStoryReporter#plan(Story)} and never gets story events.
+	 * By default it is a reporter of {@link #createReportPortalReporter(FilePrintStreamFactory, StoryReporterBuilder)} without a print
+	 * stream factory and a story reporter builder, formats whose reporters need them should override the method.
+	 *
+	 * @return a reporter to plan stories with
+	 * @see #plan(Collection)
+	 */
+	protected ReportPortalStoryReporter createPlanner() {
+		return createReportPortalReporter(null, null);
+	}
+
+	/**
+	 * Plans a launch: precomputes code references, attributes and test case IDs of stories, scenarios, example rows and steps in parallel,
+	 * so story reporters only look them up on story events. If the format has no reporting cache, a cache which fits all planned items is
+	 * created, up to 262144 values of each type. Call the method before running stories, E.G. with stories parsed
+	 * for the {@link org.jbehave.core.embedder.Embedder}.
+	 * <p>
+	 * Planning trades memory for speed: planned values of all items, with their code references, stay in the cache until the stories run.
+	 * Values over the cache size would evict values planned earlier, so only the first stories, in the collection order, which fit into the
+	 * cache are planned, values of the rest are computed on story events as usual.
+	 *
+	 * @param stories parsed stories to run, in the order they run
+	 * @return the reporting cache with planned values
+	 * @see ReportPortalStoryReporter#plan(Story)
+	 */
+	@Nonnull
+	public ReportingCache plan(@Nonnull final Collection<Story> stories) {
+		boolean streaming = streamingExamples;
+		List<Story> storyList = new ArrayList<>(stories);
+		long[] counts = storyList.parallelStream().mapToLong(s -> countItems(s, streaming)).toArray();
+		ReportingCache cache = reportingCache;
+		if (cache == null) {
+			long items = Arrays.stream(counts).sum();
+			cache = new ReportingCache((int) Math.min(MAX_PLAN_CACHE_SIZE, Math.max(MIN_PLAN_CACHE_SIZE, items + 1)));
+			reportingCache = cache;
+		}
+		int planned = 0;
+		for (long total = 0; planned < counts.length && total + counts[planned] <= cache.getMaxSize(); planned++) {
+			total += counts[planned];
+		}
+		ReportPortalStoryReporter planner = createPlanner();
+		planner.setReportingCache(cache);
+		planner.setStreamingExamples(streaming);
+		storyList.subList(0, planned).parallelStream().forEach(planner::plan);
+		return cache;
+	}
+
+	/**
+	 * Loads and parses stories with the loader and the parser of a JBehave configuration in parallel and plans a launch of them. Stories are
+	 * parsed once more when they run, so prefer {@link #plan(Collection)} if parsed stories are at hand.
+	 *
+	 * @param configuration JBehave configuration
+	 * @param storyPaths    paths of stories to run
+	 * @return the reporting cache with planned values
+	 */
+	@Nonnull
+	public ReportingCache plan(@Nonnull final Configuration configuration, @Nonnull final List<String> storyPaths) {
+		List<Story> stories = storyPaths.parallelStream()
+				.map(p -> configuration.storyParser().parseStory(configuration.storyLoader().loadStoryAsText(p), p))
+				.collect(Collectors.toList());
+		return plan(stories);
+	}
+
+	/**
+	 * Sets a renderer of failure stack traces for reporters created by the format.
+	 *
+	 * @param renderer a stack trace renderer, E.G. with custom package exclusions or a depth limit
+	 * @see StackTraceRenderer#DEFAULT_EXCLUDED_PACKAGES
+	 */
+	public void setStackTraceRenderer(@Nonnull final StackTraceRenderer renderer) {
+		stackTraceRenderer = renderer;
+	}
+
+	/**
+	 * Sets launch-wide log rate limits for reporters created by the format, E.G.:
+	 * <pre>{@code
+	 * // 10 logs per second per item with bursts up to 100 logs, 200 logs per second per launch with bursts up to 2000 logs
+	 * format.setLogRateLimiter(new LogRateLimiter(10, 100, 200, 2000));
+	 * }</pre>
+	 *
+	 * A number of logs dropped by the launch limit is reported as a launch log on launch finish.
+	 *
+	 * @param limiter a log rate limiter or null to send all logs
+	 */
+	public void setLogRateLimiter(@Nullable final LogRateLimiter limiter) {
+		logRateLimiter = limiter;
+	}
+
+	/**
+	 * @return launch-wide log rate limits with a number of dropped logs, if set
+	 */
+	@Nonnull
+	public Optional<LogRateLimiter> getLogRateLimiter() {
+		return ofNullable(logRateLimiter);
+	}
+
+	/**
+	 * Enables or disables failure clustering. In the mode failures of the launch are grouped by their root causes, each failed step gets
+	 * a {@code failure.signature} attribute of its group, and a summary of the groups, the most frequent first, is written into a file on
+	 * launch finish.
+	 *
+	 * @param summaryFile a file to write the summary into, or null to disable failure clustering
+	 */
+	public void setFailureClustering(@Nullable final Path summaryFile) {
+		failureClusterer = summaryFile == null ? null : new FailureClusterer(summaryFile);
+	}
+
+	/**
+	 * @return failure clusters of the launch, if failure clustering is enabled
+	 */
+	@Nonnull
+	public Optional<FailureClusterer> getFailureClusterer() {
+		return ofNullable(failureClusterer);
+	}
+
+	/**
+	 * Enables or disables stalled step reporting. In the mode steps which run longer than the threshold get a warning log every interval
+	 * until they finish, all steps of the launch are checked by a single scheduled task.
+	 *
+	 * @param stallThreshold   a step duration after which the step is considered stalled
+	 * @param progressInterval an interval between progress logs of a stalled step
+	 * @param unit             a time unit of the threshold and the interval
+	 * @param threadDump       true to attach a stack trace of a thread which runs a stalled step to progress logs
+	 */
+	public void setStepWatchdog(long stallThreshold, long progressInterval, @Nonnull final TimeUnit unit, boolean threadDump) {
+		ofNullable(stepWatchdog).ifPresent(StepWatchdog::close);
+		stepWatchdog = new StepWatchdog(() -> {
+			Launch myLaunch = launch.get();
+			// progress logs are rare, so they are sent without batching
+			return LoggingContext.init(itemTree.getLaunchId(),
+					Maybe.empty(),
+					myLaunch.getClient(),
+					Schedulers.io(),
+					1,
+					myLaunch.getParameters().isConvertImage()
+			);
+		}, stallThreshold, progressInterval, unit, threadDump);
+	}
+
+	/**
+	 * Disables stalled step reporting.
+	 */
+	public void disableStepWatchdog() {
+		ofNullable(stepWatchdog).ifPresent(StepWatchdog::close);
+		stepWatchdog = null;
+	}
+
+	/**
+	 * Enables or disables attachment deduplication. In the mode attachments sent with
+	 * {@link ReportPortalStoryReporter#sendAttachment(TestItemTree.TestItemLeaf, com.epam.reportportal.listeners.LogLevel, String, String,
+	 * java.io.InputStream)} are uploaded once per launch, repeated attachments with the same content are logged as references.
+	 *
+	 * @param enabled true to enable attachment deduplication
+	 */
+	public void setAttachmentDeduplication(boolean enabled) {
+		attachmentCache = enabled ? new AttachmentCache() : null;
+	}
+
+	/**
+	 * @return a launch-wide registry of uploaded attachments with upload and deduplication counters, if attachment deduplication is enabled
+	 */
+	@Nonnull
+	public Optional<AttachmentCache> getAttachmentCache() {
+		return ofNullable(attachmentCache);
+	}
+
 	/**
 	 * @return a ReportPortal class instance which is used to communicate with the portal
 	 */
@@ -168,6 +564,30 @@ public abstract class ReportPortalFormat extends Format {
 		return itemTree;
 	}
 
+	/**
+	 * Finds a test item leaf by its code reference without walking the test item tree.
+	 *
+	 * @param codeRef an item code reference
+	 * @return the last started item leaf with the code reference, empty if item indexing is disabled
+	 * @see #setItemIndexing(boolean)
+	 */
+	@Nonnull
+	public Optional<TestItemTree.TestItemLeaf> findItemByCodeRef(@Nonnull final String codeRef) {
+		return ofNullable(itemIndex).flatMap(i -> i.getByCodeRef(codeRef));
+	}
+
+	/**
+	 * Finds a test item leaf by its test case ID without walking the test item tree.
+	 *
+	 * @param testCaseId an item test case ID
+	 * @return the last started item leaf with the test case ID, empty if item indexing is disabled
+	 * @see #setItemIndexing(boolean)
+	 */
+	@Nonnull
+	public Optional<TestItemTree.TestItemLeaf> findItemByTestCaseId(@Nonnull final String testCaseId) {
+		return ofNullable(itemIndex).flatMap(i -> i.getByTestCaseId(testCaseId));
+	}
+
 	/**
 	 * Returns a formatter instance for the current thread.
 	 *
@@ -178,6 +598,24 @@ public abstract class ReportPortalFormat extends Format {
 		return INSTANCES.get();
 	}
 
+	/**
+	 * Passes a log of an application log appender to the story reporter of the current thread, see
+	 * {@link ReportPortalStoryReporter#appendLog(LogLevel, String)}. Call it from an appender before sending the log to Report Portal the
+	 * usual way, E.G.:
+	 * <pre>{@code
+	 * if (!ReportPortalFormat.appendLog(level, message)) {
+	 *     ReportPortal.emitLog(message, level.name(), new Date());
+	 * }
+	 * }</pre>
+	 *
+	 * @param level   a log level
+	 * @param message a log message
+	 * @return true if the log was handled by the reporter, false if there is no reporter or running step
+	 */
+	public static boolean appendLog(@Nonnull final LogLevel level, @Nullable final String message) {
+		return getCurrentStoryReporter().map(r -> r.appendLog(level, message)).orElse(false);
+	}
+
 	/**
 	 * Returns a story reporter for the current thread if any.
 	 *
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.tree.TestItemTree;
+import org.jbehave.core.reporters.FilePrintStreamFactory;
+import org.jbehave.core.reporters.StoryReporterBuilder;
+
+/**
+ * A format to report JBehave runs into Report Portal application. Each Scenario reported with the format will have its own statistics,
+ * Steps are reported as log lines of their Scenarios instead of test items.
+ */
+public class ReportPortalLightScenarioFormat extends ReportPortalFormat {
+	public static final ReportPortalLightScenarioFormat INSTANCE = new ReportPortalLightScenarioFormat();
+
+	public ReportPortalLightScenarioFormat() {
+		this(ReportPortal.builder().build());
+	}
+
+	public ReportPortalLightScenarioFormat(final ReportPortal reportPortal) {
+		super(reportPortal);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ReportPortalStoryReporter createReportPortalReporter(FilePrintStreamFactory factory,
+			StoryReporterBuilder storyReporterBuilder) {
+		return new ReportPortalLightScenarioStoryReporter(launch, itemTree);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ReportPortalStoryReporter createPlanner() {
+		return new ReportPortalLightScenarioStoryReporter(launch, new TestItemTree());
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.tree.TestItemTree;
+
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+
+/**
+ * JBehave Reporter for reporting results into ReportPortal. Reports each Story Scenario, or each Example row if a Scenario has Examples, as
+ * a separate test, like {@link ReportPortalScenarioStoryReporter}. Steps are not reported as test items at all: each step is recorded as
+ * a log line with its status and duration, and the lines are sent as a single log entry when the scenario or the example row finishes.
+ * Stories and scenarios with {@value ReportingGranularity#META_NAME} meta are reported with the granularity from the meta.
+ */
+public class ReportPortalLightScenarioStoryReporter extends ReportPortalScenarioStoryReporter {
+
+	public ReportPortalLightScenarioStoryReporter(final Supplier<Launch> launchSupplier, TestItemTree testItemTree) {
+		super(launchSupplier, testItemTree);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Nonnull
+	protected ReportingGranularity getDefaultGranularity() {
+		return ReportingGranularity.SCENARIO;
+	}
+}
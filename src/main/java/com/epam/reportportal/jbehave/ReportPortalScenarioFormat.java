@@ -16,6 +16,7 @@
 package com.epam.reportportal.jbehave;
 
 import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.tree.TestItemTree;
 import org.jbehave.core.reporters.FilePrintStreamFactory;
 import org.jbehave.core.reporters.StoryReporterBuilder;
 
@@ -44,4 +45,12 @@ public class ReportPortalScenarioFormat extends ReportPortalFormat {
 			StoryReporterBuilder storyReporterBuilder) {
 		return new ReportPortalScenarioStoryReporter(launch, itemTree);
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ReportPortalStoryReporter createPlanner() {
+		return new ReportPortalScenarioStoryReporter(launch, new TestItemTree());
+	}
 }
@@ -25,6 +25,7 @@ import org.jbehave.core.model.Scenario;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -42,6 +43,17 @@ public class ReportPortalScenarioStoryReporter extends ReportPortalStoryReporter
 		super(launchSupplier, testItemTree);
 	}
 
+	/**
+	 * {@inheritDoc} Also computes test case IDs of scenarios and example rows, which are reported as tests.
+	 */
+	@Override
+	protected void planItem(@Nonnull final ItemType type, @Nonnull final String codeRef, @Nullable final List<String> params) {
+		super.planItem(type, codeRef, params);
+		if (type == ItemType.SCENARIO || type == ItemType.SUITE) {
+			getTestCaseId(codeRef, null);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -16,6 +16,7 @@
 package com.epam.reportportal.jbehave;
 
 import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.tree.TestItemTree;
 import org.jbehave.core.reporters.FilePrintStreamFactory;
 import org.jbehave.core.reporters.StoryReporterBuilder;
 
@@ -43,4 +44,12 @@ public class ReportPortalStepFormat extends ReportPortalFormat {
 	public ReportPortalStoryReporter createReportPortalReporter(FilePrintStreamFactory factory, StoryReporterBuilder storyReporterBuilder) {
 		return new ReportPortalStepStoryReporter(launch, itemTree);
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ReportPortalStoryReporter createPlanner() {
+		return new ReportPortalStepStoryReporter(launch, new TestItemTree());
+	}
 }
@@ -15,7 +15,19 @@
  */
 package com.epam.reportportal.jbehave;
 
+import com.epam.reportportal.jbehave.attachment.AttachmentCache;
+import com.epam.reportportal.jbehave.failure.FailureClusterer;
+import com.epam.reportportal.jbehave.log.LogRateLimiter;
+import com.epam.reportportal.jbehave.log.StackTraceRenderer;
+import com.epam.reportportal.jbehave.log.StepLogBuffer;
+import com.epam.reportportal.jbehave.log.StepWatchdog;
+import com.epam.reportportal.jbehave.sharding.DurationHistory;
+import com.epam.reportportal.jbehave.util.CodeReference;
+import com.epam.reportportal.jbehave.util.CodeReferenceSegmentCache;
+import com.epam.reportportal.jbehave.util.ItemIndex;
 import com.epam.reportportal.jbehave.util.ItemTreeUtils;
+import com.epam.reportportal.jbehave.util.MetaAttributesCache;
+import com.epam.reportportal.jbehave.util.ReportingCache;
 import com.epam.reportportal.listeners.ItemStatus;
 import com.epam.reportportal.listeners.ItemType;
 import com.epam.reportportal.listeners.LogLevel;
@@ -33,16 +45,25 @@ import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
 import com.epam.ta.reportportal.ws.model.issue.Issue;
 import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
 import io.reactivex.Maybe;
-import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.jbehave.core.failures.UUIDExceptionWrapper;
 import org.jbehave.core.model.*;
 import org.jbehave.core.reporters.NullStoryReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -58,14 +79,26 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
  * @author Vadzim Hushchanskou
  */
 public abstract class ReportPortalStoryReporter extends NullStoryReporter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportPortalStoryReporter.class);
+
 	public static final String CODE_REF = "CODE_REF";
+	public static final String CODE_REF_NODE = "CODE_REF_NODE";
+	public static final String TEST_CASE_ID = "TEST_CASE_ID";
 	public static final String START_TIME = "START_TIME";
 	public static final String PARAMETERS = "PARAMETERS";
 	public static final String PARENT = "PARENT";
 	public static final String START_REQUEST = "START_REQUEST";
 	public static final String FINISH_REQUEST = "FINISH_REQUEST";
+	public static final String CHILD_STATUS = "CHILD_STATUS";
+	public static final String COUNTED_STATUS = "COUNTED_STATUS";
+	public static final String CHILD_STATUS_CHANGED = "CHILD_STATUS_CHANGED";
+	public static final String LOG_BUFFER = "LOG_BUFFER";
+	public static final String VIRTUAL = "VIRTUAL";
+	public static final String GRANULARITY = "GRANULARITY";
+	public static final String LOG_LIMIT = "LOG_LIMIT";
+	public static final String FAILURE_SIGNATURE = "FAILURE_SIGNATURE";
+	public static final String COMPACT = "COMPACT";
 
-	private static final String CODE_REFERENCE_DELIMITER = "/";
 	private static final String CODE_REFERENCE_ITEM_TYPE_DELIMITER = ":";
 	private static final String PARAMETER_ITEMS_DELIMITER = ";";
 	private static final String CODE_REFERENCE_ITEM_START = "[";
@@ -76,24 +109,363 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	private static final String EXAMPLE = "EXAMPLE";
 	private static final String EXAMPLE_PARAMETER_DELIMITER = PARAMETER_ITEMS_DELIMITER + " ";
 	private static final String EXAMPLE_KEY_VALUE_DELIMITER = CODE_REFERENCE_ITEM_TYPE_DELIMITER + " ";
-	private static final String NO_NAME = "No name";
+	public static final String NO_NAME = "No name";
 	private static final String BEFORE_STORIES = "BeforeStories";
 	private static final String AFTER_STORIES = "AfterStories";
 	private static final String BEFORE_STORY = "BeforeStory";
 	private static final String AFTER_STORY = "AfterStory";
+	private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+	private static final String DROPPED_LOGS_MESSAGE = "%d logs dropped by the log rate limit";
+	private static final String SKIPPED_CAPTURED_LOGS_MESSAGE = "... %d earlier log lines were not kept";
+	private static final String FAILURE_SIGNATURE_ATTRIBUTE = "failure.signature";
+	private static final String GIVEN_STORY_REFERENCE_DESCRIPTION =
+			"Given story '%s' passed, its scenarios and steps are reported at its first run in the launch";
+
+	private static final MetaAttributesCache META_ATTRIBUTES = new MetaAttributesCache(Collections.singleton(
+			ReportingGranularity.META_NAME));
+	private static final CodeReferenceSegmentCache SEGMENTS = new CodeReferenceSegmentCache();
+	private static final Maybe<OperationCompletionRS> COMPLETED_RESPONSE = Maybe.just(new OperationCompletionRS());
+	private static final List<String> COMPACT_ATTRIBUTES = Arrays.asList(CODE_REF,
+			CODE_REF_NODE,
+			TEST_CASE_ID,
+			START_TIME,
+			PARAMETERS,
+			CHILD_STATUS,
+			COUNTED_STATUS,
+			GRANULARITY,
+			VIRTUAL
+	);
 
 	private final Deque<Entity<?>> structure = new LinkedList<>();
 	private final Deque<TestItemTree.TestItemLeaf> stepStack = new LinkedList<>();
+	private final Deque<FinishedItem> finishedItems = new LinkedList<>();
 	private final Supplier<Launch> launch;
 	private final TestItemTree itemTree;
 	private volatile ItemType currentLifecycleItemType;
 	private volatile TestItemTree.TestItemLeaf lastStep;
+	private volatile boolean streamingExamples;
+	private volatile boolean leafCompaction;
+	private volatile DurationHistory durationHistory;
+	private volatile int stepLogCapacity;
+	private volatile int passedStepLogLines;
+	private volatile ReportingCache reportingCache;
+	private volatile AttachmentCache attachmentCache;
+	private volatile StackTraceRenderer stackTraceRenderer = StackTraceRenderer.DEFAULT;
+	private volatile LogRateLimiter logRateLimiter;
+	private volatile StepWatchdog stepWatchdog;
+	private volatile FailureClusterer failureClusterer;
+	private volatile ItemIndex itemIndex;
+	private Story rootStory;
+	private long rootStoryStart;
 
 	public ReportPortalStoryReporter(final Supplier<Launch> launchSupplier, TestItemTree testItemTree) {
 		launch = launchSupplier;
 		itemTree = testItemTree;
 	}
 
+	/**
+	 * Enables or disables streaming examples mode. In the mode an example item leaf is removed from the test item tree as soon as the
+	 * example finishes, so the example row and its step leaves do not stay in memory until the launch end. Example statuses are still taken
+	 * into account in the scenario status, but example leaves are not available in the tree after finish.
+	 *
+	 * @param enabled true to enable streaming examples mode
+	 */
+	public void setStreamingExamples(boolean enabled) {
+		streamingExamples = enabled;
+	}
+
+	/**
+	 * @return true if streaming examples mode is enabled
+	 */
+	public boolean isStreamingExamples() {
+		return streamingExamples;
+	}
+
+	/**
+	 * Enables or disables leaf compaction. In the mode finished item leaves are replaced in the test item tree with compact copies, see
+	 * {@link #compactLeaf(TestItemTree.TestItemLeaf, TestItemTree.TestItemLeaf)}. Compact leaves do not keep {@link #START_REQUEST} and
+	 * {@link #FINISH_REQUEST} attributes, so don't enable the mode if callbacks read them from finished items.
+	 * <p>
+	 * Leaves are replaced on the story thread, when the reporter gets a next event after Report Portal confirmed the item finish. Items
+	 * which are not confirmed when the root story finishes are compacted as confirmations come, no story thread reenters them then.
+	 *
+	 * @param enabled true to enable leaf compaction
+	 */
+	public void setLeafCompaction(boolean enabled) {
+		leafCompaction = enabled;
+	}
+
+	/**
+	 * @return true if leaf compaction is enabled
+	 */
+	public boolean isLeafCompaction() {
+		return leafCompaction;
+	}
+
+	/**
+	 * Sets a history to record durations of reported stories into. Given stories are not recorded separately, their durations are included
+	 * into their parent stories.
+	 *
+	 * @param history story duration history or null to not record durations
+	 */
+	public void setDurationHistory(@Nullable final DurationHistory history) {
+		durationHistory = history;
+	}
+
+	/**
+	 * Sets a cache of code references and test case IDs to share with other reporters which report the same run.
+	 *
+	 * @param cache a shared cache or null to calculate the values in the reporter
+	 * @see ReportPortalCompositeFormat
+	 */
+	public void setReportingCache(@Nullable final ReportingCache cache) {
+		reportingCache = cache;
+	}
+
+	/**
+	 * Sets a renderer of failure stack traces, E.G. with custom package exclusions or a depth limit.
+	 *
+	 * @param renderer a stack trace renderer
+	 */
+	public void setStackTraceRenderer(@Nonnull final StackTraceRenderer renderer) {
+		stackTraceRenderer = renderer;
+	}
+
+	/**
+	 * Sets a launch-wide registry of uploaded attachments to not upload the same content twice.
+	 *
+	 * @param cache an attachment registry or null to upload every attachment
+	 * @see #sendAttachment(TestItemTree.TestItemLeaf, LogLevel, String, String, InputStream)
+	 */
+	public void setAttachmentCache(@Nullable final AttachmentCache cache) {
+		attachmentCache = cache;
+	}
+
+	/**
+	 * Sends a log entry with an attachment to an item, E.G. to the current step from {@link #getLastStep()}. The content is hashed while
+	 * it is read. If an attachment registry is set and an attachment with the same content was already uploaded in the launch, the log
+	 * entry gets a reference to the uploaded attachment instead of the content.
+	 *
+	 * @param leaf    an item leaf to attach to
+	 * @param level   a log level
+	 * @param message a log message
+	 * @param name    an attachment file name
+	 * @param content attachment content, the stream is read to its end but not closed, it is not read if the log is dropped by log rate
+	 *                limits
+	 * @throws IOException if the content can't be read
+	 * @see #setAttachmentCache(AttachmentCache)
+	 */
+	public void sendAttachment(@Nonnull final TestItemTree.TestItemLeaf leaf, @Nonnull final LogLevel level, @Nullable final String message,
+			@Nonnull final String name, @Nonnull final InputStream content) throws IOException {
+		if (!acquireLog(leaf)) {
+			return;
+		}
+		AttachmentCache.Payload payload = AttachmentCache.Payload.read(content);
+		AttachmentCache cache = attachmentCache;
+		if (cache != null) {
+			String itemReference = ofNullable(getCodeRefString(leaf)).orElse("an item");
+			String reference = cache.register(payload, String.format("'%s' attached to %s", name, itemReference));
+			if (reference != null) {
+				String text = String.format("Attachment '%s' (%d bytes) is identical to %s, it was not uploaded again",
+						name,
+						payload.getLength(),
+						reference
+				);
+				ReportPortal.emitLog(leaf.getItemId(), getLogSupplier(level, isBlank(message) ? text : message + "\n" + text));
+				return;
+			}
+		}
+		ReportPortal.emitLog(leaf.getItemId(), itemUuid -> {
+			SaveLogRQ rq = getLogSupplier(level, message).apply(itemUuid);
+			SaveLogRQ.File file = new SaveLogRQ.File();
+			file.setName(name);
+			file.setContent(payload.getContent());
+			file.setContentType(ofNullable(URLConnection.guessContentTypeFromName(name)).orElse(DEFAULT_CONTENT_TYPE));
+			rq.setFile(file);
+			return rq;
+		});
+	}
+
+	/**
+	 * Sets launch-wide limits of a number of logs sent by the reporter, including application logs passed to
+	 * {@link #appendLog(LogLevel, String)}. Logs over the limits are dropped, and a number of dropped logs is reported to an item when the
+	 * item finishes. Failure stack traces and log lines of children which are not reported as items are not
+	 * limited.
+	 *
+	 * @param limiter a log rate limiter or null to send all logs
+	 */
+	public void setLogRateLimiter(@Nullable final LogRateLimiter limiter) {
+		logRateLimiter = limiter;
+	}
+
+	/**
+	 * Sets a launch-wide watchdog which reports progress of stalled steps.
+	 *
+	 * @param watchdog a step watchdog or null to not watch steps
+	 */
+	public void setStepWatchdog(@Nullable final StepWatchdog watchdog) {
+		stepWatchdog = watchdog;
+	}
+
+	/**
+	 * Sets a launch-wide index of item leaves by code reference and test case ID, which the reporter updates as it starts, compacts and
+	 * releases leaves.
+	 *
+	 * @param index an item index or null to not index items
+	 */
+	public void setItemIndex(@Nullable final ItemIndex index) {
+		itemIndex = index;
+	}
+
+	/**
+	 * Sets a launch-wide failure clusterer. With the clusterer each failed step gets a signature of its root cause, which is set as
+	 * {@code failure.signature} attribute of the step item.
+	 *
+	 * @param clusterer a failure clusterer or null to not group failures
+	 */
+	public void setFailureClusterer(@Nullable final FailureClusterer clusterer) {
+		failureClusterer = clusterer;
+	}
+
+	/**
+	 * Adds a step failure into its cluster and saves the failure signature in {@link #FAILURE_SIGNATURE} attribute of the step leaf.
+	 *
+	 * @param step  a step name
+	 * @param leaf  the step test item leaf
+	 * @param cause a reason of the failure
+	 * @see #setFailureClusterer(FailureClusterer)
+	 */
+	protected void clusterFailure(@Nullable final String step, @Nonnull final TestItemTree.TestItemLeaf leaf,
+			@Nullable final Throwable cause) {
+		FailureClusterer clusterer = failureClusterer;
+		if (clusterer == null || cause == null) {
+			return;
+		}
+		String item = ofNullable(getCodeRefString(leaf)).orElse(String.valueOf(step));
+		leaf.setAttribute(FAILURE_SIGNATURE, clusterer.add(cause, item, stackTraceRenderer.getExcludedPackages()));
+	}
+
+	/**
+	 * Takes a token of log rate limits for a log of an item.
+	 *
+	 * @param leaf an item leaf the log belongs to
+	 * @return true if the log can be sent, false if it should be dropped
+	 * @see #setLogRateLimiter(LogRateLimiter)
+	 */
+	protected boolean acquireLog(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		LogRateLimiter limiter = logRateLimiter;
+		if (limiter == null) {
+			return true;
+		}
+		LogRateLimiter.Bucket bucket;
+		synchronized (leaf) {
+			bucket = leaf.getAttribute(LOG_LIMIT);
+			if (bucket == null) {
+				bucket = limiter.newItemBucket();
+				if (bucket != null) {
+					leaf.setAttribute(LOG_LIMIT, bucket);
+				}
+			}
+		}
+		return limiter.tryAcquire(bucket);
+	}
+
+	/**
+	 * Sends a log of an item if it is within log rate limits.
+	 *
+	 * @param leaf        an item leaf the log belongs to
+	 * @param logSupplier a log request supplier
+	 * @return true if the log was sent
+	 * @see #setLogRateLimiter(LogRateLimiter)
+	 */
+	protected boolean emitLog(@Nonnull final TestItemTree.TestItemLeaf leaf, @Nonnull final Function<String, SaveLogRQ> logSupplier) {
+		if (!acquireLog(leaf)) {
+			return false;
+		}
+		ReportPortal.emitLog(leaf.getItemId(), logSupplier);
+		return true;
+	}
+
+	/**
+	 * Sends a log to the current step, within log rate limits.
+	 *
+	 * @param level   a log level
+	 * @param message a log message
+	 * @return true if the log was sent, false if it was dropped or there is no running step
+	 * @see #setLogRateLimiter(LogRateLimiter)
+	 */
+	public boolean sendLog(@Nonnull final LogLevel level, @Nullable final String message) {
+		TestItemTree.TestItemLeaf step = lastStep;
+		return step != null && emitLog(step, getLogSupplier(level, message));
+	}
+
+	/**
+	 * Handles a log of an application log appender against the current step: the log is captured if step log capture is enabled,
+	 * otherwise it is sent within log rate limits.
+	 *
+	 * @param level   a log level
+	 * @param message a log message
+	 * @return true if the log belongs to the current step, including when it was dropped by log rate limits, false if there is no running
+	 * step and the log should be sent the usual way
+	 * @see ReportPortalFormat#appendLog(LogLevel, String)
+	 */
+	public boolean appendLog(@Nonnull final LogLevel level, @Nullable final String message) {
+		TestItemTree.TestItemLeaf step = lastStep;
+		if (step == null) {
+			return false;
+		}
+		StepLogBuffer buffer = step.getAttribute(LOG_BUFFER);
+		if (buffer == null || !buffer.add(level, message)) {
+			emitLog(step, getLogSupplier(level, message));
+		}
+		return true;
+	}
+
+	/**
+	 * Reports a number of logs of an item dropped by log rate limits, if any.
+	 *
+	 * @param leaf an item leaf
+	 */
+	protected void sendDroppedLogCount(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		LogRateLimiter.Bucket bucket = leaf.getAttribute(LOG_LIMIT);
+		if (bucket != null && bucket.getDroppedCount() > 0) {
+			ReportPortal.emitLog(leaf.getItemId(),
+					getLogSupplier(LogLevel.WARN, String.format(DROPPED_LOGS_MESSAGE, bucket.getDroppedCount()))
+			);
+		}
+	}
+
+	/**
+	 * Enables or disables step log capture. In the mode logs passed to {@link #captureLog(LogLevel, String)} during a step are collected
+	 * in a bounded buffer and sent as a single log entry on the step finish. Failed steps get all kept lines, other steps get only the
+	 * specified number of last lines.
+	 *
+	 * @param capacity        a maximum number of lines to keep per step, 0 to disable the capture
+	 * @param passedStepLines a number of last lines to send for not failed steps, 0 to drop their logs
+	 */
+	public void setStepLogCapture(int capacity, int passedStepLines) {
+		stepLogCapacity = Math.max(capacity, 0);
+		passedStepLogLines = Math.max(passedStepLines, 0);
+	}
+
+	/**
+	 * Captures a log line into the buffer of the current step. Log appenders should use
+	 * {@link ReportPortalFormat#appendLog(LogLevel, String)}, which captures the log or sends it within log rate limits.
+	 *
+	 * @param level   a log level
+	 * @param message a log message
+	 * @return true if the line was captured, false if step log capture is disabled or there is no running step
+	 * @see #setStepLogCapture(int, int)
+	 */
+	public boolean captureLog(@Nonnull final LogLevel level, @Nullable final String message) {
+		TestItemTree.TestItemLeaf step = lastStep;
+		if (step == null) {
+			return false;
+		}
+		StepLogBuffer buffer = step.getAttribute(LOG_BUFFER);
+		return buffer != null && buffer.add(level, message);
+	}
+
 	/**
 	 * Returns an item leaf of the last step reported with a reporter instance
 	 *
@@ -110,22 +482,80 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 * @param parentCodeRef a basis code reference or null if it's a root item
 	 * @param key           an item leaf key
 	 * @param type          an item type
-	 * @return a code reference string to identify every element of a story
+	 * @return a code reference to identify every element of a story
 	 */
-	private String getCodeRef(@Nullable final String parentCodeRef, @Nonnull final TestItemTree.ItemTreeKey key, ItemType type) {
-		StringBuilder sb = new StringBuilder();
-		if (isBlank(parentCodeRef)) {
-			sb.append(key.getName());
-		} else {
-			sb.append(parentCodeRef)
-					.append(CODE_REFERENCE_DELIMITER)
-					.append(CODE_REFERENCE_ITEM_START)
-					.append(type != ItemType.SUITE ? type.name() : EXAMPLE)
-					.append(CODE_REFERENCE_ITEM_TYPE_DELIMITER)
-					.append(key.getName().replace("\n", "").replace("\r", ""))
-					.append(CODE_REFERENCE_ITEM_END);
+	private CodeReference getCodeRef(@Nullable final CodeReference parentCodeRef, @Nonnull final TestItemTree.ItemTreeKey key,
+			ItemType type) {
+		if (parentCodeRef == null) {
+			return getRootCodeRef(key.getName());
+		}
+		return parentCodeRef.child(type != ItemType.SUITE ?
+				SEGMENTS.get(type, key.getName()).getValue() :
+				CodeReferenceSegmentCache.segment(EXAMPLE, key.getName()));
+	}
+
+	@Nonnull
+	private CodeReference getRootCodeRef(@Nonnull final String value) {
+		ReportingCache cache = reportingCache;
+		return cache == null ? CodeReference.of(value) : cache.getRoot(value);
+	}
+
+	@Nonnull
+	private String getCodeRefString(@Nonnull final CodeReference codeRef) {
+		return getCodeRefString(codeRef, true);
+	}
+
+	/**
+	 * @param codeRef a code reference
+	 * @param cached  false to not keep the string in the reporting cache, E.G. for an example row which is reported once in streaming
+	 *                examples mode
+	 * @return the code reference string
+	 */
+	@Nonnull
+	private String getCodeRefString(@Nonnull final CodeReference codeRef, boolean cached) {
+		ReportingCache cache = reportingCache;
+		return cache == null || !cached ? codeRef.toString() : cache.getString(codeRef);
+	}
+
+	/**
+	 * Returns a code reference string of an item leaf. The string is built from {@link #CODE_REF_NODE} attribute on each call, leaves which
+	 * were created without a node hold the string in {@link #CODE_REF} attribute.
+	 *
+	 * @param leaf an item leaf
+	 * @return the code reference string or null if the leaf has no code reference
+	 */
+	@Nullable
+	public static String getLeafCodeRef(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		String codeRef = leaf.getAttribute(CODE_REF);
+		if (codeRef != null) {
+			return codeRef;
+		}
+		return ofNullable(leaf.<CodeReference>getAttribute(CODE_REF_NODE)).map(CodeReference::toString).orElse(null);
+	}
+
+	@Nullable
+	private String getCodeRefString(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		String codeRef = leaf.getAttribute(CODE_REF);
+		if (codeRef != null) {
+			return codeRef;
 		}
-		return sb.toString();
+		return ofNullable(leaf.<CodeReference>getAttribute(CODE_REF_NODE)).map(this::getCodeRefString).orElse(null);
+	}
+
+	/**
+	 * Returns a code reference node of an item leaf to build child code references. Leaves which were created without a node, E.G. by
+	 * subclasses or compacted ones, get a root node of their code reference string.
+	 *
+	 * @param leaf an item leaf
+	 * @return the code reference node or null if the leaf has no code reference
+	 */
+	@Nullable
+	private CodeReference getCodeRefNode(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		CodeReference result = leaf.getAttribute(CODE_REF_NODE);
+		if (result != null) {
+			return result;
+		}
+		return ofNullable(leaf.<String>getAttribute(CODE_REF)).map(CodeReference::of).orElse(null);
 	}
 
 	/**
@@ -139,19 +569,16 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	}
 
 	/**
-	 * Converts a JBehave {@link Meta} object into a {@link Set} of {@link ItemAttributesRQ} ready to use in a request to Report Portal
+	 * Converts a JBehave {@link Meta} object into a {@link Set} of {@link ItemAttributesRQ} ready to use in a request to Report Portal.
+	 * Converted sets are cached by meta content and shared between requests, copy a set before changing it, E.G. in an overridden
+	 * {@link #buildStartScenarioRq(Scenario, String, Date)}.
 	 *
 	 * @param meta JBehave's meta object
-	 * @return a set of attributes
+	 * @return an unmodifiable set of attributes
 	 */
 	@Nonnull
 	protected Set<ItemAttributesRQ> getAttributes(@Nonnull final Meta meta) {
-		Set<ItemAttributesRQ> items = new HashSet<>();
-		meta.getPropertyNames().forEach(name -> {
-			String value = meta.getProperty(name);
-			items.add(isBlank(value) ? new ItemAttributesRQ(name) : new ItemAttributesRQ(name, value));
-		});
-		return items;
+		return META_ATTRIBUTES.get(meta);
 	}
 
 	/**
@@ -318,7 +745,8 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	}
 
 	/**
-	 * Creates a {@link TestCaseIdEntry} by code reference and parameter map.
+	 * Creates a {@link TestCaseIdEntry} by code reference and parameter map. In streaming examples mode test case IDs with parameters, which
+	 * belong to a single example row, are not kept in the reporting cache.
 	 *
 	 * @param codeRef a test code reference
 	 * @param params  test parameters map (if any)
@@ -326,7 +754,83 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 */
 	@Nullable
 	protected TestCaseIdEntry getTestCaseId(@Nullable String codeRef, @Nullable final List<String> params) {
-		return TestCaseIdUtils.getTestCaseId(codeRef, params);
+		ReportingCache cache = reportingCache;
+		return cache == null || (streamingExamples && params != null) ?
+				TestCaseIdUtils.getTestCaseId(codeRef, params) :
+				cache.getTestCaseId(codeRef, params);
+	}
+
+	/**
+	 * Precomputes code references, code reference strings, attributes and test case IDs of a story, its scenarios, example rows and steps
+	 * into the reporting cache, so story events only look them up. The method is thread-safe, stories can be planned in parallel. It does
+	 * nothing if the reporter has no reporting cache. In streaming examples mode example rows and their steps are not planned, since they
+	 * are reported once and not cached.
+	 *
+	 * @param story a parsed story
+	 * @return a number of planned items
+	 * @see #setReportingCache(ReportingCache)
+	 */
+	public int plan(@Nonnull final Story story) {
+		if (reportingCache == null) {
+			return 0;
+		}
+		CodeReference storyCodeRef = getCodeRef(null, getKey(new Entity<>(ItemType.STORY, story)), ItemType.STORY);
+		planItem(ItemType.STORY, getCodeRefString(storyCodeRef), null);
+		getAttributes(story);
+		int count = 1;
+		for (Scenario scenario : story.getScenarios()) {
+			CodeReference scenarioCodeRef = getCodeRef(storyCodeRef,
+					getKey(new Entity<>(ItemType.SCENARIO, scenario)),
+					ItemType.SCENARIO
+			);
+			planItem(ItemType.SCENARIO, getCodeRefString(scenarioCodeRef), null);
+			getAttributes(scenario);
+			count++;
+			ExamplesTable table = scenario.getExamplesTable();
+			if (table == null || table.getRowCount() == 0) {
+				count += planSteps(scenarioCodeRef, scenario.getSteps(), null);
+				continue;
+			}
+			if (streamingExamples) {
+				continue;
+			}
+			for (Map<String, String> row : table.getRows()) {
+				CodeReference exampleCodeRef = getCodeRef(scenarioCodeRef, ItemTreeUtils.createKey(row), ItemType.SUITE);
+				planItem(ItemType.SUITE, getCodeRefString(exampleCodeRef), null);
+				count += 1 + planSteps(exampleCodeRef, scenario.getSteps(), row);
+			}
+		}
+		return count;
+	}
+
+	private int planSteps(@Nonnull final CodeReference parentCodeRef, @Nonnull final List<String> steps,
+			@Nullable final Map<String, String> params) {
+		for (String step : steps) {
+			String codeRef = getCodeRefString(parentCodeRef.child(SEGMENTS.get(ItemType.STEP, step).getValue()));
+			planItem(ItemType.STEP,
+					codeRef,
+					ofNullable(params).map(p -> getUsedParameters(step).stream()
+							.filter(p::containsKey)
+							.map(p::get)
+							.collect(Collectors.toList())).orElse(null)
+			);
+		}
+		return steps.size();
+	}
+
+	/**
+	 * Extension point to precompute values of a planned item, which the reporter derives from its code reference and parameters. By
+	 * default computes test case IDs of steps.
+	 *
+	 * @param type    an item type, {@link ItemType#SUITE} for an example row
+	 * @param codeRef the item code reference
+	 * @param params  values of example parameters used by a step, or null
+	 * @see #plan(Story)
+	 */
+	protected void planItem(@Nonnull final ItemType type, @Nonnull final String codeRef, @Nullable final List<String> params) {
+		if (type == ItemType.STEP) {
+			getTestCaseId(codeRef, params);
+		}
 	}
 
 	/**
@@ -414,6 +918,22 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	@Nonnull
 	protected TestItemTree.TestItemLeaf createLeaf(@Nonnull final ItemType type, @Nonnull final StartTestItemRQ rq,
 			@Nullable final TestItemTree.TestItemLeaf parent) {
+		return createLeaf(type, rq, parent, ofNullable(rq.getCodeRef()).map(CodeReference::of).orElse(null));
+	}
+
+	/**
+	 * Creates and starts a test item leaf
+	 *
+	 * @param type    the item type
+	 * @param rq      a request to Report Portal
+	 * @param parent  a parent test item leaf
+	 * @param codeRef the item code reference node, which is stored in the leaf instead of the code reference string, or null to store the
+	 *                request code reference string in {@link #CODE_REF} attribute
+	 * @return a leaf of the item
+	 */
+	@Nonnull
+	protected TestItemTree.TestItemLeaf createLeaf(@Nonnull final ItemType type, @Nonnull final StartTestItemRQ rq,
+			@Nullable final TestItemTree.TestItemLeaf parent, @Nullable final CodeReference codeRef) {
 		Optional<TestItemTree.TestItemLeaf> parentOptional = ofNullable(parent);
 		Optional<Maybe<String>> parentId = parentOptional.map(TestItemTree.TestItemLeaf::getItemId);
 		Maybe<String> itemId = startTestItem(parentId.orElse(null), rq);
@@ -423,7 +943,13 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 		l.setAttribute(START_TIME, rq.getStartTime());
 		l.setAttribute(START_REQUEST, rq);
 		parentOptional.ifPresent(p -> l.setAttribute(PARENT, p));
-		ofNullable(rq.getCodeRef()).ifPresent(r -> l.setAttribute(CODE_REF, r));
+		if (codeRef != null) {
+			l.setAttribute(CODE_REF_NODE, codeRef);
+		} else {
+			ofNullable(rq.getCodeRef()).ifPresent(r -> l.setAttribute(CODE_REF, r));
+		}
+		ofNullable(rq.getTestCaseId()).ifPresent(id -> l.setAttribute(TEST_CASE_ID, id));
+		ofNullable(itemIndex).ifPresent(i -> i.add(l));
 		return l;
 	}
 
@@ -465,34 +991,54 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 			final TestItemTree.TestItemLeaf parentLeaf = parent.map(Pair::getValue).orElse(null);
 			final Map<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> children = parent.map(p -> p.getValue().getChildItems())
 					.orElseGet(itemTree::getTestItems);
-			final String parentCodeRef = parent.map(p -> (String) p.getValue().getAttribute(CODE_REF)).orElse(null);
+			final CodeReference parentCodeRef = parent.map(p -> getCodeRefNode(p.getValue())).orElse(null);
 			Date itemDate = getItemDate(parent.map(Pair::getValue).orElse(null));
 			switch (itemType) {
 				case STORY:
 					Story story = (Story) entity.get();
-					TestItemTree.ItemTreeKey storyKey = ItemTreeUtils.createKey(story);
-					leafChain.add(ImmutablePair.of(storyKey, children.computeIfAbsent(storyKey, k -> createLeaf(ItemType.STORY,
-							buildStartStoryRq(story, getCodeRef(parentCodeRef, k, ItemType.STORY), itemDate),
-							parentLeaf
-					))));
+					TestItemTree.ItemTreeKey storyKey = getKey(entity);
+					leafChain.add(ImmutablePair.of(storyKey, children.computeIfAbsent(storyKey, k -> {
+						CodeReference codeRef = getCodeRef(parentCodeRef, k, ItemType.STORY);
+						TestItemTree.TestItemLeaf leaf = createLeaf(ItemType.STORY,
+								buildStartStoryRq(story, getCodeRefString(codeRef), itemDate),
+								parentLeaf,
+								codeRef
+						);
+						leaf.setAttribute(GRANULARITY, resolveGranularity(story.getMeta(), parentLeaf));
+						return leaf;
+					})));
 					break;
 				case SCENARIO:
 					Scenario scenario = (Scenario) entity.get();
-					TestItemTree.ItemTreeKey scenarioKey = ItemTreeUtils.createKey(getScenarioName(scenario));
-					leafChain.add(ImmutablePair.of(scenarioKey, children.computeIfAbsent(scenarioKey, k -> createLeaf(ItemType.SCENARIO,
-							buildStartScenarioRq(scenario, getCodeRef(parentCodeRef, k, ItemType.SCENARIO), itemDate),
-							parentLeaf
-					))));
+					TestItemTree.ItemTreeKey scenarioKey = getKey(entity);
+					leafChain.add(ImmutablePair.of(scenarioKey, children.computeIfAbsent(scenarioKey, k -> {
+						CodeReference codeRef = getCodeRef(parentCodeRef, k, ItemType.SCENARIO);
+						TestItemTree.TestItemLeaf leaf;
+						if (parentLeaf == null || isScenarioItemReported(parentLeaf)) {
+							StartTestItemRQ rq = buildStartScenarioRq(scenario, getCodeRefString(codeRef), itemDate);
+							leaf = createLeaf(ItemType.SCENARIO, rq, parentLeaf, codeRef);
+						} else {
+							leaf = createVirtualLeaf(ItemType.SCENARIO, getScenarioName(scenario), parentLeaf, codeRef);
+						}
+						leaf.setAttribute(GRANULARITY, resolveGranularity(scenario.getMeta(), parentLeaf));
+						return leaf;
+					})));
 					break;
 				case SUITE: // type SUITE == an Example
 					Map<String, String> example = (Map<String, String>) entity.get();
 					TestItemTree.ItemTreeKey exampleKey = ItemTreeUtils.createKey(example);
 					leafChain.add(ImmutablePair.of(exampleKey, children.computeIfAbsent(exampleKey, k -> {
-						TestItemTree.TestItemLeaf leaf = createLeaf(ItemType.SUITE,
-								buildStartExampleRq(example, getCodeRef(parentCodeRef, k, ItemType.SUITE), itemDate),
-								parentLeaf
-						);
+						CodeReference codeRef = getCodeRef(parentCodeRef, k, ItemType.SUITE);
+						TestItemTree.TestItemLeaf leaf;
+						if (parentLeaf == null || isScenarioItemReported(parentLeaf)) {
+							StartTestItemRQ rq = buildStartExampleRq(example, getCodeRefString(codeRef, !streamingExamples), itemDate);
+							leaf = createLeaf(ItemType.SUITE, rq, parentLeaf, codeRef);
+						} else {
+							leaf = createVirtualLeaf(ItemType.SUITE, formatExampleName(example), parentLeaf, codeRef);
+						}
 						leaf.setAttribute(PARAMETERS, example);
+						ofNullable(parentLeaf).map(p -> p.<ReportingGranularity>getAttribute(GRANULARITY))
+								.ifPresent(g -> leaf.setAttribute(GRANULARITY, g));
 						return leaf;
 					})));
 					break;
@@ -508,47 +1054,45 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 		return leafChain.get(leafChain.size() - 1).getValue();
 	}
 
+	/**
+	 * Returns a key of a structure entity, which is used to store the entity leaf in its parent.
+	 *
+	 * @param entity a structure entity
+	 * @return the leaf key
+	 */
+	@SuppressWarnings("unchecked")
+	@Nonnull
+	private TestItemTree.ItemTreeKey getKey(@Nonnull final Entity<?> entity) {
+		switch (entity.type()) {
+			case STORY:
+				return SEGMENTS.get(ItemType.STORY, ((Story) entity.get()).getPath()).getKey();
+			case SCENARIO:
+				return SEGMENTS.get(ItemType.SCENARIO, getScenarioName((Scenario) entity.get())).getKey();
+			case SUITE: // type SUITE == an Example
+				return ItemTreeUtils.createKey((Map<String, String>) entity.get());
+			default:
+				return ItemTreeUtils.createKey((String) entity.get());
+		}
+	}
+
 	/**
 	 * Returns current test item leaf in Test Tree.
 	 *
 	 * @return a leaf of an item inside ItemTree or null if not found
 	 */
-	@SuppressWarnings("unchecked")
 	@Nullable
 	protected TestItemTree.TestItemLeaf getLeaf() {
-		final List<Pair<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf>> leafChain = new ArrayList<>();
+		TestItemTree.TestItemLeaf leaf = null;
 		for (Entity<?> entity : structure) {
-			final ItemType itemType = entity.type();
-			final Pair<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> parent = leafChain.isEmpty() ?
-					null :
-					leafChain.get(leafChain.size() - 1);
-			if (parent != null) {
-				if (parent.getValue() == null) {
-					return null;
-				}
-			}
-			final Map<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> children = ofNullable(parent).map(p -> p.getValue()
-					.getChildItems()).orElseGet(itemTree::getTestItems);
-			switch (itemType) {
-				case STORY:
-					TestItemTree.ItemTreeKey storyKey = ItemTreeUtils.createKey((Story) entity.get());
-					leafChain.add(ImmutablePair.of(storyKey, children.get(storyKey)));
-					break;
-				case SCENARIO:
-					TestItemTree.ItemTreeKey scenarioKey = ItemTreeUtils.createKey(getScenarioName((Scenario) entity.get()));
-					leafChain.add(ImmutablePair.of(scenarioKey, children.get(scenarioKey)));
-					break;
-				case SUITE: // type SUITE == an Example
-					TestItemTree.ItemTreeKey exampleKey = ItemTreeUtils.createKey((Map<String, String>) entity.get());
-					leafChain.add(ImmutablePair.of(exampleKey, children.get(exampleKey)));
-					break;
-				default:
-					TestItemTree.ItemTreeKey stepKey = ItemTreeUtils.createKey((String) entity.get());
-					leafChain.add(ImmutablePair.of(stepKey, children.get(stepKey)));
-					break;
+			final Map<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> children = leaf == null ?
+					itemTree.getTestItems() :
+					leaf.getChildItems();
+			leaf = children.get(getKey(entity));
+			if (leaf == null) {
+				return null;
 			}
 		}
-		return leafChain.isEmpty() ? null : leafChain.get(leafChain.size() - 1).getValue();
+		return leaf;
 	}
 
 	/**
@@ -559,20 +1103,131 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 * @return the step leaf
 	 */
 	protected TestItemTree.TestItemLeaf startStep(@Nonnull final String name, @Nonnull final TestItemTree.TestItemLeaf parent) {
-		TestItemTree.ItemTreeKey key = ItemTreeUtils.createKey(name);
+		CodeReferenceSegmentCache.Segment segment = SEGMENTS.get(ItemType.STEP, name);
+		TestItemTree.ItemTreeKey key = segment.getKey();
+		CodeReference parentCodeRef = getCodeRefNode(parent);
+		CodeReference codeRef = parentCodeRef == null ? getRootCodeRef(name) : parentCodeRef.child(segment.getValue());
+		if (!isStepItemReported(parent)) {
+			return createVirtualLeaf(ItemType.STEP, formatExampleStep(name, parent.getAttribute(PARAMETERS)), parent, codeRef);
+		}
 		TestItemTree.TestItemLeaf leaf = createLeaf(
 				ItemType.STEP,
 				buildStartStepRq(name,
-						getCodeRef(parent.getAttribute(CODE_REF), key, ItemType.STEP),
+						getCodeRefString(codeRef, !streamingExamples || parent.getType() != ItemType.SUITE),
 						parent.getAttribute(PARAMETERS),
 						getItemDate(parent)
 				),
-				parent
+				parent,
+				codeRef
 		);
 		parent.getChildItems().put(key, leaf);
 		return leaf;
 	}
 
+	/**
+	 * Returns a default reporting granularity, which is used for stories without {@value ReportingGranularity#META_NAME} meta.
+	 *
+	 * @return the granularity
+	 */
+	@Nonnull
+	protected ReportingGranularity getDefaultGranularity() {
+		return ReportingGranularity.STEP;
+	}
+
+	/**
+	 * Returns a reporting granularity of an item, which defines how its child items are reported.
+	 *
+	 * @param leaf an item leaf
+	 * @return the granularity
+	 * @see ReportingGranularity
+	 */
+	@Nonnull
+	protected ReportingGranularity getGranularity(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		return ofNullable(leaf.<ReportingGranularity>getAttribute(GRANULARITY)).orElseGet(this::getDefaultGranularity);
+	}
+
+	@Nonnull
+	private ReportingGranularity resolveGranularity(@Nonnull final Meta meta, @Nullable final TestItemTree.TestItemLeaf parent) {
+		return ofNullable(ReportingGranularity.fromMeta(meta)).orElseGet(() -> ofNullable(parent).map(this::getGranularity)
+				.orElseGet(this::getDefaultGranularity));
+	}
+
+	/**
+	 * Extension point to choose if steps of an item are reported as separate test items. If not, a step gets a virtual leaf which is not
+	 * added to the test item tree and shares the parent item ID, so step logs go to the parent item. On the step finish a log entry with the
+	 * step status and duration is sent to the parent item with the step start time, at ERROR level if the step failed. By default steps are
+	 * reported as test items if the parent item is reported and its granularity is {@link ReportingGranularity#STEP}.
+	 *
+	 * @param parent a parent test item leaf of a step
+	 * @return true to report steps as test items
+	 */
+	protected boolean isStepItemReported(@Nonnull final TestItemTree.TestItemLeaf parent) {
+		return parent.getAttribute(VIRTUAL) == null && getGranularity(parent) == ReportingGranularity.STEP;
+	}
+
+	/**
+	 * Extension point to choose if scenarios and example rows of an item are reported as separate test items. If not, they get virtual
+	 * leaves, the same way as steps do, see {@link #isStepItemReported(TestItemTree.TestItemLeaf)}. By default they are reported as test
+	 * items if the parent item is reported and its granularity is not {@link ReportingGranularity#STORY}.
+	 *
+	 * @param parent a parent test item leaf of a scenario or an example row
+	 * @return true to report scenarios and example rows as test items
+	 */
+	protected boolean isScenarioItemReported(@Nonnull final TestItemTree.TestItemLeaf parent) {
+		return parent.getAttribute(VIRTUAL) == null && getGranularity(parent) != ReportingGranularity.STORY;
+	}
+
+	@Nonnull
+	private TestItemTree.TestItemLeaf createVirtualLeaf(@Nonnull final ItemType type, @Nonnull final String name,
+			@Nonnull final TestItemTree.TestItemLeaf parent, @Nonnull final CodeReference codeRef) {
+		TestItemTree.TestItemLeaf leaf = TestItemTree.createTestItemLeaf(parent.getItemId(), parent.getItemId());
+		leaf.setType(type);
+		leaf.setAttribute(START_TIME, Calendar.getInstance().getTime());
+		leaf.setAttribute(PARENT, parent);
+		leaf.setAttribute(CODE_REF_NODE, codeRef);
+		leaf.setAttribute(VIRTUAL, name);
+		return leaf;
+	}
+
+	/**
+	 * Extension point to customize a log line of a step, a scenario or an example row which is not reported as a separate test item.
+	 *
+	 * @param name      an item name
+	 * @param status    the item status
+	 * @param startTime the item start time
+	 * @param cause     a reason of the item failure, if any
+	 * @return the log line
+	 * @see #isStepItemReported(TestItemTree.TestItemLeaf)
+	 * @see #isScenarioItemReported(TestItemTree.TestItemLeaf)
+	 */
+	@Nonnull
+	protected String formatItemLogLine(@Nonnull final String name, @Nullable final ItemStatus status, @Nonnull final Date startTime,
+			@Nullable final Throwable cause) {
+		long duration = System.currentTimeMillis() - startTime.getTime();
+		String statusName = ofNullable(status).map(Enum::name).orElse("NO STATUS");
+		String line = String.format("%tT.%<tL [%s] %s (%d ms)", startTime, statusName, name, duration);
+		if (cause == null) {
+			return line;
+		}
+		// JBehave wraps step failures, the wrapper message is the step text
+		Throwable failure = cause instanceof UUIDExceptionWrapper && cause.getCause() != null ? cause.getCause() : cause;
+		return line + ": " + failure;
+	}
+
+	private void sendItemLogLine(@Nonnull final TestItemTree.TestItemLeaf item, @Nonnull final String name,
+			@Nullable final ItemStatus status, @Nullable final Throwable cause) {
+		Date startTime = item.getAttribute(START_TIME);
+		StringBuilder line = new StringBuilder();
+		// lines of steps of a virtual scenario or example row go under its line with an indent
+		for (TestItemTree.TestItemLeaf parent = item.getAttribute(PARENT); parent != null && parent.getAttribute(VIRTUAL) != null;
+				parent = parent.getAttribute(PARENT)) {
+			line.append('\t');
+		}
+		String message = line.append(formatItemLogLine(name, status, startTime, cause)).toString();
+		LogLevel level = status == ItemStatus.FAILED ? LogLevel.ERROR : LogLevel.INFO;
+		ReportPortal.emitLog(item.getItemId(), getTimedLogSupplier(level, message, startTime));
+	}
+
 	/**
 	 * Starts a lifecycle step on Report Portal
 	 *
@@ -598,7 +1253,6 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 * @param issue  test item issue to set (if any)
 	 * @return finish request
 	 */
-	@SuppressWarnings("unused")
 	@Nonnull
 	protected FinishTestItemRQ buildFinishTestItemRequest(@Nonnull final Maybe<String> id, @Nullable final ItemStatus status,
 			@Nullable Issue issue) {
@@ -616,13 +1270,42 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 * @param status a status to set on finish
 	 */
 	protected void finishItem(@Nullable final TestItemTree.TestItemLeaf item, @Nullable final ItemStatus status) {
+		ofNullable(item).ifPresent(i -> finishItem(i, status, buildFinishTestItemRequest(i.getItemId(), status, null)));
+	}
+
+	private void finishItem(@Nonnull final TestItemTree.TestItemLeaf item, @Nullable final ItemStatus status,
+			@Nonnull final FinishTestItemRQ rq) {
+		Maybe<OperationCompletionRS> response;
+		sendDroppedLogCount(item);
+		String virtualName = item.getAttribute(VIRTUAL);
+		if (virtualName != null) {
+			sendItemLogLine(item, virtualName, status, null);
+			response = COMPLETED_RESPONSE;
+		} else {
+			response = launch.get().finishTestItem(item.getItemId(), rq);
+		}
+		updateStatus(item, status);
+		item.setFinishResponse(response);
+		item.setAttribute(FINISH_REQUEST, rq);
+	}
+
+	/**
+	 * Reports a given story, which passed and was already reported in full earlier in the launch, as a single story item without child
+	 * items.
+	 *
+	 * @param story JBehave given story object
+	 * @see GivenStoryDeduplicatingReporter
+	 */
+	protected void reportGivenStoryReference(@Nonnull final Story story) {
+		structure.add(new Entity<>(ItemType.STORY, story));
+		TestItemTree.TestItemLeaf item = retrieveLeaf();
 		ofNullable(item).ifPresent(i -> {
-			FinishTestItemRQ rq = buildFinishTestItemRequest(i.getItemId(), status, null);
-			Maybe<OperationCompletionRS> response = launch.get().finishTestItem(i.getItemId(), rq);
-			i.setStatus(status);
-			i.setFinishResponse(response);
-			i.setAttribute(FINISH_REQUEST, rq);
+			FinishTestItemRQ rq = buildFinishTestItemRequest(i.getItemId(), ItemStatus.PASSED, null);
+			rq.setDescription(String.format(GIVEN_STORY_REFERENCE_DESCRIPTION, story.getPath()));
+			finishItem(i, ItemStatus.PASSED, rq);
 		});
+		scheduleCompaction(item);
+		structure.pollLast();
 	}
 
 	/**
@@ -634,6 +1317,7 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	protected void finishLastItem(@Nullable final ItemStatus status) {
 		TestItemTree.TestItemLeaf item = getLeaf();
 		finishItem(item, status);
+		scheduleCompaction(item);
 		structure.pollLast();
 	}
 
@@ -650,25 +1334,255 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 		return StatusEvaluation.evaluateStatus(currentStatus, childStatus);
 	}
 
+	/**
+	 * Sets a status of an item leaf and counts it in the child status counters of its parent, which are stored in {@link #CHILD_STATUS}
+	 * attribute of the parent leaf. The status which was counted before is taken back, so a status can be changed in any direction. Parent
+	 * items are finished with the counted statuses, their child items are not iterated. So a status set with
+	 * {@link TestItemTree.TestItemLeaf#setStatus(ItemStatus)} directly, E.G. by an item tree callback, is ignored unless the leaf is marked
+	 * with {@link #markStatusChanged(TestItemTree.TestItemLeaf)}.
+	 *
+	 * @param leaf   an item leaf
+	 * @param status the item status
+	 */
+	public void updateStatus(@Nonnull final TestItemTree.TestItemLeaf leaf, @Nullable final ItemStatus status) {
+		leaf.setStatus(status);
+		countStatus(leaf);
+	}
+
+	/**
+	 * Marks a leaf which status was set with {@link TestItemTree.TestItemLeaf#setStatus(ItemStatus)} directly, so child items of its
+	 * parent are counted again when the parent item finishes.
+	 *
+	 * @param leaf an item leaf
+	 * @see #updateStatus(TestItemTree.TestItemLeaf, ItemStatus)
+	 */
+	public static void markStatusChanged(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		ofNullable(leaf.<TestItemTree.TestItemLeaf>getAttribute(PARENT)).ifPresent(p -> p.setAttribute(CHILD_STATUS_CHANGED, Boolean.TRUE));
+	}
+
+	/**
+	 * Moves the current status of an item leaf to the child status counters of its parent, if it differs from the counted one.
+	 *
+	 * @param leaf an item leaf
+	 */
+	private void countStatus(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		TestItemTree.TestItemLeaf parent = leaf.getAttribute(PARENT);
+		if (parent == null) {
+			return;
+		}
+		synchronized (leaf) {
+			ItemStatus status = leaf.getStatus();
+			ItemStatus counted = leaf.getAttribute(COUNTED_STATUS);
+			if (status == counted) {
+				return;
+			}
+			Map<ItemStatus, Integer> counters = getChildStatusCounters(parent);
+			if (counted != null) {
+				counters.computeIfPresent(counted, (s, c) -> c > 1 ? c - 1 : null);
+				leaf.clearAttribute(COUNTED_STATUS);
+			}
+			if (status != null) {
+				counters.merge(status, 1, Integer::sum);
+				leaf.setAttribute(COUNTED_STATUS, status);
+			}
+		}
+	}
+
+	@Nonnull
+	private static Map<ItemStatus, Integer> getChildStatusCounters(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		Map<ItemStatus, Integer> counters = leaf.getAttribute(CHILD_STATUS);
+		if (counters == null) {
+			synchronized (leaf) {
+				counters = leaf.getAttribute(CHILD_STATUS);
+				if (counters == null) {
+					counters = new ConcurrentHashMap<>();
+					leaf.setAttribute(CHILD_STATUS, counters);
+				}
+			}
+		}
+		return counters;
+	}
+
+	/**
+	 * Returns a status of an item evaluated by its own status and counted statuses of its child items. The method does not iterate
+	 * through child items, so it can be called at any moment, E.G. to display progress of a running item.
+	 *
+	 * @param leaf an item leaf
+	 * @return the item status or null if there are no counted child statuses and the item status is not set
+	 */
+	@Nullable
+	public ItemStatus getAggregatedStatus(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		ItemStatus status = leaf.getStatus();
+		Map<ItemStatus, Integer> counters = leaf.getAttribute(CHILD_STATUS);
+		if (counters != null) {
+			for (ItemStatus childStatus : ItemStatus.values()) {
+				if (counters.containsKey(childStatus)) {
+					status = evaluateStatus(status, childStatus);
+				}
+			}
+		}
+		return status;
+	}
+
 	/**
 	 * Pulls the last item in the structure stack, evaluates it status by child element statuses and finish it
 	 */
 	protected void evaluateAndFinishLastItem() {
 		TestItemTree.TestItemLeaf item = getLeaf();
 		ofNullable(item).ifPresent(i -> {
-			ItemStatus status = i.getStatus();
-			for (Map.Entry<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> entry : i.getChildItems().entrySet()) {
-				TestItemTree.TestItemLeaf value = entry.getValue();
-				if (value != null) {
-					status = evaluateStatus(status, value.getStatus());
-				}
+			if (i.clearAttribute(CHILD_STATUS_CHANGED) != null) {
+				i.getChildItems().values().forEach(this::countStatus);
 			}
+			ItemStatus status = getAggregatedStatus(i);
 			i.setStatus(status);
 			finishItem(i, status);
 		});
+		if (streamingExamples && item != null && item.getType() == ItemType.SUITE) {
+			releaseLeaf(item);
+		} else {
+			scheduleCompaction(item);
+		}
 		structure.pollLast();
 	}
 
+	/**
+	 * Removes the last item in the structure from the test item tree.
+	 *
+	 * @param item the last item in the structure, which was just finished
+	 */
+	private void releaseLeaf(@Nonnull final TestItemTree.TestItemLeaf item) {
+		TestItemTree.TestItemLeaf parent = item.getAttribute(PARENT);
+		Map<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> container = parent == null ?
+				itemTree.getTestItems() :
+				parent.getChildItems();
+		ofNullable(structure.peekLast()).ifPresent(e -> container.remove(getKey(e), item));
+		ofNullable(itemIndex).ifPresent(i -> i.remove(item));
+	}
+
+	/**
+	 * Creates a compact copy of a finished item leaf and its child leaves. The copy keeps only resolved item IDs instead of cached RxJava
+	 * chains, which hold operators, subscribers and responses, and does not keep start and finish requests. Child leaves which are already
+	 * compact are reused. Override the method to copy custom leaf attributes.
+	 *
+	 * @param leaf   a finished item leaf, all its child items should be already finished
+	 * @param parent a compact copy of the parent leaf or null if the leaf is the root of compaction
+	 * @return the leaf copy
+	 * @throws IllegalStateException if an item ID is not resolved yet, E.G. if a child item is still starting
+	 */
+	@Nonnull
+	protected TestItemTree.TestItemLeaf compactLeaf(@Nonnull final TestItemTree.TestItemLeaf leaf,
+			@Nullable final TestItemTree.TestItemLeaf parent) {
+		if (parent != null && leaf.getAttribute(COMPACT) != null) {
+			leaf.setAttribute(PARENT, parent);
+			return leaf;
+		}
+		Maybe<String> itemId = Maybe.just(getResolvedId(leaf.getItemId()));
+		Maybe<String> parentId = parent != null ?
+				parent.getItemId() :
+				ofNullable(leaf.getParentId()).map(p -> Maybe.just(getResolvedId(p))).orElse(null);
+		TestItemTree.TestItemLeaf result = ofNullable(parentId).map(p -> TestItemTree.createTestItemLeaf(p, itemId))
+				.orElseGet(() -> TestItemTree.createTestItemLeaf(itemId));
+		ofNullable(leaf.getType()).ifPresent(result::setType);
+		ofNullable(leaf.getStatus()).ifPresent(result::setStatus);
+		ofNullable(leaf.getFinishResponse()).ifPresent(r -> result.setFinishResponse(COMPLETED_RESPONSE));
+		for (String attribute : COMPACT_ATTRIBUTES) {
+			ofNullable(leaf.getAttribute(attribute)).ifPresent(a -> result.setAttribute(attribute, a));
+		}
+		result.setAttribute(COMPACT, Boolean.TRUE);
+		TestItemTree.TestItemLeaf parentLeaf = ofNullable(parent).orElseGet(() -> leaf.getAttribute(PARENT));
+		ofNullable(parentLeaf).ifPresent(p -> result.setAttribute(PARENT, p));
+		for (Map.Entry<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> child : leaf.getChildItems().entrySet()) {
+			result.getChildItems().put(child.getKey(), compactLeaf(child.getValue(), result));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a value of a resolved item ID without blocking, compaction runs on a thread which can be needed to resolve other IDs.
+	 *
+	 * @param id an item ID
+	 * @return the item ID value
+	 * @throws IllegalStateException if the ID is not resolved yet
+	 */
+	@Nonnull
+	private static String getResolvedId(@Nonnull final Maybe<String> id) {
+		AtomicReference<String> result = new AtomicReference<>();
+		id.subscribe(result::set, e -> {}).dispose();
+		return ofNullable(result.get()).orElseThrow(() -> new IllegalStateException("Item ID is not resolved yet"));
+	}
+
+	/**
+	 * Queues the last item in the structure to replace it with its compact copy after Report Portal confirms the item finish, if leaf
+	 * compaction is enabled.
+	 *
+	 * @param item the last item in the structure, which was just finished
+	 * @see #setLeafCompaction(boolean)
+	 */
+	private void scheduleCompaction(@Nullable final TestItemTree.TestItemLeaf item) {
+		Entity<?> entity = structure.peekLast();
+		if (!leafCompaction || item == null || entity == null || item.getFinishResponse() == null) {
+			return;
+		}
+		TestItemTree.TestItemLeaf parent = item.getAttribute(PARENT);
+		Map<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> container = parent == null ?
+				itemTree.getTestItems() :
+				parent.getChildItems();
+		finishedItems.add(new FinishedItem(item, getKey(entity), container));
+		compactFinishedItems();
+	}
+
+	/**
+	 * Compacts queued items which finish Report Portal already confirmed. Child items are queued before their parents, so the queue is
+	 * processed in order up to the first not confirmed item.
+	 */
+	private void compactFinishedItems() {
+		for (FinishedItem item = finishedItems.peekFirst(); item != null && isCompleted(item.leaf.getFinishResponse());
+				item = finishedItems.peekFirst()) {
+			finishedItems.pollFirst();
+			compact(item);
+		}
+	}
+
+	/**
+	 * Compacts the rest of queued items as Report Portal confirms them, the method is called when the root story finishes.
+	 */
+	private void compactFinishedItemsOnConfirmation() {
+		for (FinishedItem item = finishedItems.pollFirst(); item != null; item = finishedItems.pollFirst()) {
+			FinishedItem finished = item;
+			//noinspection ResultOfMethodCallIgnored
+			finished.leaf.getFinishResponse()
+					.subscribe(r -> compact(finished),
+							e -> LOGGER.debug("An item was not finished, its leaf will not be compacted: {}", e.getMessage(), e)
+					);
+		}
+	}
+
+	private void compact(@Nonnull final FinishedItem item) {
+		TestItemTree.TestItemLeaf compact;
+		try {
+			compact = compactLeaf(item.leaf, null);
+		} catch (RuntimeException e) {
+			// E.G. a reused item got new child items, keep the original leaf
+			LOGGER.debug("Unable to compact a finished item leaf: {}", e.getMessage(), e);
+			return;
+		}
+		if (item.container.replace(item.key, item.leaf, compact)) {
+			ofNullable(itemIndex).ifPresent(i -> i.replace(item.leaf, compact));
+		}
+	}
+
+	/**
+	 * Checks without blocking if a response came, successful or not.
+	 *
+	 * @param response a cached response
+	 * @return true if the response came
+	 */
+	private static boolean isCompleted(@Nonnull final Maybe<?> response) {
+		AtomicBoolean result = new AtomicBoolean();
+		response.subscribe(r -> result.set(true), e -> result.set(true), () -> result.set(true)).dispose();
+		return result.get();
+	}
+
 	/**
 	 * Prepare a function which creates a {@link SaveLogRQ} from a {@link Throwable}
 	 *
@@ -689,14 +1603,28 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 		};
 	}
 
+	@Nonnull
+	private Function<String, SaveLogRQ> getTimedLogSupplier(@Nonnull final LogLevel level, @Nullable final String message,
+			@Nonnull final Date time) {
+		Function<String, SaveLogRQ> supplier = getLogSupplier(level, message);
+		return itemUuid -> {
+			SaveLogRQ rq = supplier.apply(itemUuid);
+			rq.setLogTime(time);
+			return rq;
+		};
+	}
+
 	/**
-	 * Send a message to report portal about appeared failure
+	 * Send a message to report portal about appeared failure. The stack trace is rendered by the log supplier, on the reporting thread.
 	 *
 	 * @param itemId an ID of an Item to which bypassed stacktrace will be attached
 	 * @param thrown {@link Throwable} object with details of the failure
 	 */
 	protected void sendStackTraceToRP(@Nonnull Maybe<String> itemId, @Nullable final Throwable thrown) {
-		ofNullable(thrown).ifPresent(t -> ReportPortal.emitLog(itemId, getLogSupplier(LogLevel.ERROR, ExceptionUtils.getStackTrace(t))));
+		StackTraceRenderer renderer = stackTraceRenderer;
+		ofNullable(thrown).ifPresent(t -> ReportPortal.emitLog(itemId,
+				itemUuid -> getLogSupplier(LogLevel.ERROR, renderer.render(t)).apply(itemUuid)
+		));
 	}
 
 	/**
@@ -707,17 +1635,80 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 * @param issue  an optional issue which will be set
 	 */
 	protected void finishItem(final @Nonnull Maybe<String> id, final @Nonnull ItemStatus status, @Nullable Issue issue) {
+		finishItem(id, status, issue, null);
+	}
+
+	/**
+	 * Finishes a test item on Report Portal with additional attributes. Failed steps with a failure signature are finished by the method,
+	 * other steps by {@link #finishItem(Maybe, ItemStatus, Issue)}.
+	 *
+	 * @param id         an ID of an Item
+	 * @param status     a status of the item which will be set
+	 * @param issue      an optional issue which will be set
+	 * @param attributes optional attributes to add on finish
+	 */
+	protected void finishItem(final @Nonnull Maybe<String> id, final @Nonnull ItemStatus status, @Nullable Issue issue,
+			@Nullable final Set<ItemAttributesRQ> attributes) {
 		FinishTestItemRQ rq = buildFinishTestItemRequest(id, status, issue);
+		if (attributes != null && !attributes.isEmpty()) {
+			rq.setAttributes(attributes);
+		}
 		launch.get().finishTestItem(id, rq);
 	}
 
+	/**
+	 * Sends logs captured during a step, one log entry per captured line with its own level and time. If earlier lines were overwritten
+	 * or are over the limit for a passed step, their number is logged before the kept lines.
+	 *
+	 * @param step   the step test item leaf
+	 * @param status a status of the step
+	 * @see #setStepLogCapture(int, int)
+	 */
+	protected void sendCapturedLogs(@Nonnull final TestItemTree.TestItemLeaf step, @Nonnull final ItemStatus status) {
+		StepLogBuffer buffer = step.getAttribute(LOG_BUFFER);
+		if (buffer == null) {
+			return;
+		}
+		int limit = status == ItemStatus.FAILED ? Integer.MAX_VALUE : passedStepLogLines;
+		List<StepLogBuffer.Line> lines = buffer.close(limit);
+		if (lines.isEmpty()) {
+			return;
+		}
+		long skipped = buffer.getTotal() - lines.size();
+		if (skipped > 0) {
+			emitLog(step, getTimedLogSupplier(LogLevel.INFO, String.format(SKIPPED_CAPTURED_LOGS_MESSAGE, skipped), lines.get(0).getTime()));
+		}
+		lines.forEach(line -> emitLog(step, getTimedLogSupplier(line.getLevel(), line.getMessage(), line.getTime())));
+	}
+
+	private void finishStep(final @Nonnull TestItemTree.TestItemLeaf step, final @Nonnull ItemStatus status, @Nullable Issue issue,
+			@Nullable final Throwable cause) {
+		ofNullable(stepWatchdog).ifPresent(w -> w.stop(step));
+		sendCapturedLogs(step, status);
+		sendDroppedLogCount(step);
+		String virtualName = step.getAttribute(VIRTUAL);
+		if (virtualName != null) {
+			sendItemLogLine(step, virtualName, status, cause);
+		} else {
+			String signature = step.getAttribute(FAILURE_SIGNATURE);
+			if (signature == null) {
+				finishItem(step.getItemId(), status, issue);
+			} else {
+				ItemAttributesRQ attribute = new ItemAttributesRQ();
+				attribute.setKey(FAILURE_SIGNATURE_ATTRIBUTE);
+				attribute.setValue(signature);
+				finishItem(step.getItemId(), status, issue, Collections.singleton(attribute));
+			}
+		}
+		updateStatus(step, status);
+	}
+
 	private void finishStep(final @Nonnull TestItemTree.TestItemLeaf step, final @Nonnull ItemStatus status, @Nullable Issue issue) {
-		finishItem(step.getItemId(), status, issue);
-		step.setStatus(status);
+		finishStep(step, status, issue, null);
 	}
 
 	private void finishStep(final @Nonnull TestItemTree.TestItemLeaf step, final @Nonnull ItemStatus status) {
-		finishStep(step, status, null);
+		finishStep(step, status, null, null);
 	}
 
 	/**
@@ -738,9 +1729,7 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 */
 	@SuppressWarnings("unused")
 	protected void createNotPerformedSteps(@Nullable String step, @Nonnull TestItemTree.TestItemLeaf leaf) {
-		ReportPortal.emitLog(leaf.getItemId(),
-				getLogSupplier(LogLevel.WARN, "Step execution was skipped by JBehave, see previous steps for errors.")
-		);
+		emitLog(leaf, getLogSupplier(LogLevel.WARN, "Step execution was skipped by JBehave, see previous steps for errors."));
 	}
 
 	/**
@@ -751,9 +1740,7 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 */
 	@SuppressWarnings("unused")
 	protected void createPendingSteps(@Nullable String step, @Nonnull TestItemTree.TestItemLeaf leaf) {
-		ReportPortal.emitLog(leaf.getItemId(),
-				getLogSupplier(LogLevel.WARN, String.format("Unable to locate a step implementation: '%s'", step))
-		);
+		emitLog(leaf, getLogSupplier(LogLevel.WARN, String.format("Unable to locate a step implementation: '%s'", step)));
 	}
 
 	protected void simulateStep(@Nonnull String step) {
@@ -773,6 +1760,10 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 	 */
 	@Override
 	public void beforeStory(@Nonnull Story story, boolean givenStory) {
+		if (structure.isEmpty()) {
+			rootStory = story;
+			rootStoryStart = System.nanoTime();
+		}
 		currentLifecycleItemType = AFTER_STORIES.equals(story.getName()) ? ItemType.AFTER_SUITE : ItemType.BEFORE_SUITE;
 		structure.add(new Entity<>(ItemType.STORY, story));
 	}
@@ -787,10 +1778,25 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 			evaluateAndFinishLastItem();
 		}
 		evaluateAndFinishLastItem();
+		if (structure.isEmpty()) {
+			recordDuration();
+			compactFinishedItemsOnConfirmation();
+		}
+	}
+
+	private void recordDuration() {
+		DurationHistory history = durationHistory;
+		Story story = rootStory;
+		rootStory = null;
+		if (history == null || story == null || BEFORE_STORIES.equals(story.getName()) || AFTER_STORIES.equals(story.getName())) {
+			return;
+		}
+		history.record(story.getPath(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - rootStoryStart));
 	}
 
 	@Override
 	public void storyCancelled(Story story, StoryDuration storyDuration) {
+		ofNullable(stepWatchdog).ifPresent(w -> stepStack.stream().filter(Objects::nonNull).forEach(w::stop));
 		finishLastItem(ItemStatus.SKIPPED);
 	}
 
@@ -837,6 +1843,11 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 		TestItemTree.TestItemLeaf stepLeaf = ofNullable(retrieveLeaf()).map(l -> startStep(step, l)).orElse(null);
 		stepStack.add(stepLeaf);
 		if (stepLeaf != null) {
+			int capacity = stepLogCapacity;
+			if (capacity > 0) {
+				stepLeaf.setAttribute(LOG_BUFFER, new StepLogBuffer(capacity));
+			}
+			ofNullable(stepWatchdog).ifPresent(w -> w.start(stepLeaf));
 			lastStep = stepLeaf;
 		}
 	}
@@ -898,7 +1909,8 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 		}
 		ofNullable(stepStack.pollLast()).ifPresent(i -> {
 			sendStackTraceToRP(i.getItemId(), cause);
-			finishStep(i, ItemStatus.FAILED);
+			clusterFailure(step, i, cause);
+			finishStep(i, ItemStatus.FAILED, null, cause);
 		});
 	}
 
@@ -959,6 +1971,19 @@ public abstract class ReportPortalStoryReporter extends NullStoryReporter {
 		finishLastItem(ItemStatus.SKIPPED);
 	}
 
+	private static final class FinishedItem {
+		private final TestItemTree.TestItemLeaf leaf;
+		private final TestItemTree.ItemTreeKey key;
+		private final Map<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> container;
+
+		private FinishedItem(@Nonnull final TestItemTree.TestItemLeaf item, @Nonnull final TestItemTree.ItemTreeKey itemKey,
+				@Nonnull final Map<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> itemContainer) {
+			leaf = item;
+			key = itemKey;
+			container = itemContainer;
+		}
+	}
+
 	protected static class Entity<T> {
 
 		private final ItemType type;
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave;
+
+import org.jbehave.core.model.Meta;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Defines which items of a story are reported as separate test items. Items below the granularity level are not created on Report Portal,
+ * they are reported as log lines of their closest reported parent instead.
+ * <p>
+ * The granularity can be set for a story or a scenario with {@value #META_NAME} meta, E.G. {@code @rp.granularity scenario}. A scenario
+ * without the meta uses the granularity of its story, a story without the meta uses the granularity of its parent story or the reporter
+ * default.
+ */
+public enum ReportingGranularity {
+	/**
+	 * Stories, scenarios, example rows and steps are reported as test items.
+	 */
+	STEP,
+	/**
+	 * Stories, scenarios and example rows are reported as test items, steps are reported as log lines.
+	 */
+	SCENARIO,
+	/**
+	 * Only stories are reported as test items, scenarios, example rows and steps are reported as log lines.
+	 */
+	STORY;
+
+	public static final String META_NAME = "rp.granularity";
+
+	/**
+	 * Reads the granularity from a meta.
+	 *
+	 * @param meta JBehave's meta object
+	 * @return the granularity or null if the meta does not have it or the value is unknown
+	 */
+	@Nullable
+	public static ReportingGranularity fromMeta(@Nonnull final Meta meta) {
+		String property = meta.getProperty(META_NAME);
+		if (isBlank(property)) {
+			return null;
+		}
+		String value = property.trim().toUpperCase(Locale.ROOT);
+		for (ReportingGranularity granularity : values()) {
+			if (granularity.name().equals(value)) {
+				return granularity;
+			}
+		}
+		return null;
+	}
+}
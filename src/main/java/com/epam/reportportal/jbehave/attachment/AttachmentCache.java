@@ -0,0 +1,199 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.attachment;
+
+import com.epam.reportportal.jbehave.util.BoundedCache;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A launch-wide registry of uploaded attachments. An attachment is identified by FNV-1a 64-bit hash of its content plus the content
+ * length, which is fast to calculate while the content is read and is enough to tell test attachments apart. The first attachment with a
+ * content is uploaded, later attachments with the same content are replaced with a reference to the first one.
+ * <p>
+ * The registry is bounded, when it reaches the maximum size the oldest references are evicted, so some attachments may be uploaded again.
+ */
+public class AttachmentCache {
+	private static final int DEFAULT_MAX_SIZE = 65536;
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final int BUFFER_SIZE = 8192;
+
+	private final BoundedCache<Key, String> references;
+	private final AtomicLong uploadedCount = new AtomicLong();
+	private final AtomicLong uploadedBytes = new AtomicLong();
+	private final AtomicLong deduplicatedCount = new AtomicLong();
+	private final AtomicLong savedBytes = new AtomicLong();
+
+	public AttachmentCache(int cacheSize) {
+		references = new BoundedCache<>(cacheSize);
+	}
+
+	public AttachmentCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Registers an attachment and updates counters.
+	 *
+	 * @param payload   attachment content
+	 * @param reference a reference to the attachment, E.G. its name and the item code reference, to log for later attachments with the same
+	 *                  content
+	 * @return a reference to an already uploaded attachment with the same content or null if the attachment should be uploaded
+	 */
+	@Nullable
+	public String register(@Nonnull final Payload payload, @Nonnull final String reference) {
+		Key key = new Key(payload.getHash(), payload.getLength());
+		String previous = references.get(key);
+		if (previous == null) {
+			previous = references.putIfAbsent(key, reference);
+		}
+		if (previous == null) {
+			uploadedCount.incrementAndGet();
+			uploadedBytes.addAndGet(payload.getLength());
+		} else {
+			deduplicatedCount.incrementAndGet();
+			savedBytes.addAndGet(payload.getLength());
+		}
+		return previous;
+	}
+
+	/**
+	 * @return a number of uploaded attachments
+	 */
+	public long getUploadedCount() {
+		return uploadedCount.get();
+	}
+
+	/**
+	 * @return a number of uploaded attachment bytes
+	 */
+	public long getUploadedBytes() {
+		return uploadedBytes.get();
+	}
+
+	/**
+	 * @return a number of attachments which were replaced with references
+	 */
+	public long getDeduplicatedCount() {
+		return deduplicatedCount.get();
+	}
+
+	/**
+	 * @return a number of attachment bytes which were not uploaded thanks to deduplication
+	 */
+	public long getSavedBytes() {
+		return savedBytes.get();
+	}
+
+	/**
+	 * Attachment content with its hash.
+	 */
+	public static final class Payload {
+		private final byte[] content;
+		private final long hash;
+
+		private Payload(@Nonnull final byte[] data, long contentHash) {
+			content = data;
+			hash = contentHash;
+		}
+
+		/**
+		 * Reads a stream to its end calculating the content hash on the way.
+		 *
+		 * @param stream a stream to read, it is not closed by the method
+		 * @return the payload
+		 * @throws IOException if the stream can't be read
+		 */
+		@Nonnull
+		public static Payload read(@Nonnull final InputStream stream) throws IOException {
+			ByteArrayOutputStream result = new ByteArrayOutputStream();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long hash = FNV_OFFSET_BASIS;
+			int read;
+			while ((read = stream.read(buffer)) >= 0) {
+				for (int i = 0; i < read; i++) {
+					hash ^= buffer[i] & 0xff;
+					hash *= FNV_PRIME;
+				}
+				result.write(buffer, 0, read);
+			}
+			return new Payload(result.toByteArray(), hash);
+		}
+
+		/**
+		 * @param data attachment content
+		 * @return the payload
+		 */
+		@Nonnull
+		public static Payload of(@Nonnull final byte[] data) {
+			long hash = FNV_OFFSET_BASIS;
+			for (byte b : data) {
+				hash ^= b & 0xff;
+				hash *= FNV_PRIME;
+			}
+			return new Payload(data, hash);
+		}
+
+		@Nonnull
+		public byte[] getContent() {
+			return content;
+		}
+
+		public long getHash() {
+			return hash;
+		}
+
+		public int getLength() {
+			return content.length;
+		}
+	}
+
+	/**
+	 * A registry key, which does not hold attachment content.
+	 */
+	private static final class Key {
+		private final long hash;
+		private final int length;
+
+		private Key(long contentHash, int contentLength) {
+			hash = contentHash;
+			length = contentLength;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key key = (Key) o;
+			return hash == key.hash && length == key.length;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Long.hashCode(hash) + length;
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.failure;
+
+import com.epam.reportportal.jbehave.log.StackTraceRenderer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Groups failures of a launch by their root causes. A failure signature is built from the root cause class, its message with variable
+ * parts (numbers, UUIDs, hexadecimal values, quoted strings) replaced with placeholders and top frames of the root cause outside of
+ * step invocation and reflection packages. The signature does not depend on the launch, so the same root cause gets the same signature
+ * in different runs.
+ * <p>
+ * An instance is launch-scoped and thread-safe.
+ */
+public class FailureClusterer {
+	private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+	private static final int DEFAULT_FRAME_COUNT = 3;
+	private static final int MAX_MESSAGE_LENGTH = 256;
+	private static final int MAX_SAMPLE_ITEMS = 10;
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+	private static final Pattern HEX = Pattern.compile("0x[0-9a-fA-F]+|@[0-9a-fA-F]{4,}");
+	private static final Pattern QUOTED = Pattern.compile("'[^']*'|\"[^\"]*\"");
+	private static final Pattern NUMBER = Pattern.compile("\\d+");
+	private static final Pattern SPACES = Pattern.compile("\\s+");
+
+	private final int frameCount;
+	private final Path summaryFile;
+	private final Map<String, Cluster> clusters = new ConcurrentHashMap<>();
+
+	/**
+	 * @param summaryFile a file to write the cluster summary into, or null to not write it
+	 * @param frameCount  a number of top root cause frames included into a signature
+	 */
+	public FailureClusterer(@Nullable final Path summaryFile, int frameCount) {
+		this.summaryFile = summaryFile;
+		this.frameCount = frameCount;
+	}
+
+	public FailureClusterer(@Nullable final Path summaryFile) {
+		this(summaryFile, DEFAULT_FRAME_COUNT);
+	}
+
+	@Nonnull
+	private static Throwable getRootCause(@Nonnull final Throwable throwable) {
+		Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Throwable result = throwable;
+		while (result.getCause() != null && visited.add(result)) {
+			result = result.getCause();
+		}
+		return result;
+	}
+
+	/**
+	 * Replaces variable parts of a failure message with placeholders.
+	 *
+	 * @param message a failure message
+	 * @return the normalized message
+	 */
+	@Nonnull
+	protected String normalizeMessage(@Nullable final String message) {
+		if (message == null) {
+			return "";
+		}
+		String result = message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+		result = UUID.matcher(result).replaceAll("<uuid>");
+		result = HEX.matcher(result).replaceAll("<hex>");
+		result = QUOTED.matcher(result).replaceAll("<str>");
+		result = NUMBER.matcher(result).replaceAll("<n>");
+		return SPACES.matcher(result).replaceAll(" ").trim();
+	}
+
+	@Nonnull
+	private List<String> getTopFrames(@Nonnull final Throwable throwable, @Nonnull final Collection<String> excludedPackages) {
+		List<String> frames = new ArrayList<>(frameCount);
+		for (StackTraceElement frame : throwable.getStackTrace()) {
+			if (frames.size() >= frameCount) {
+				break;
+			}
+			String className = frame.getClassName();
+			if (excludedPackages.stream().noneMatch(className::startsWith)) {
+				// line numbers are left out, so an unrelated change of a file does not change signatures
+				frames.add(className + "." + frame.getMethodName());
+			}
+		}
+		return frames;
+	}
+
+	@Nonnull
+	private static String hash(@Nonnull final String value) {
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return String.format("%016x", hash);
+	}
+
+	/**
+	 * Adds a failure into its cluster.
+	 *
+	 * @param failure          a failure cause
+	 * @param item             a reference to a failed item, E.G. its code reference
+	 * @param excludedPackages package name prefixes which frames are skipped in the signature, E.G. the ones of the stack trace renderer
+	 * @return the failure signature
+	 * @see StackTraceRenderer#getExcludedPackages()
+	 */
+	@Nonnull
+	public String add(@Nonnull final Throwable failure, @Nonnull final String item, @Nonnull final Collection<String> excludedPackages) {
+		Throwable rootCause = getRootCause(failure);
+		String exception = rootCause.getClass().getName();
+		String message = normalizeMessage(rootCause.getMessage());
+		List<String> frames = getTopFrames(rootCause, excludedPackages);
+		String signature = hash(exception + '\n' + message + '\n' + String.join("\n", frames));
+		Cluster cluster = clusters.computeIfAbsent(signature, s -> new Cluster(s, exception, message, frames));
+		cluster.add(item);
+		return signature;
+	}
+
+	/**
+	 * Adds a failure into its cluster, frames of {@link StackTraceRenderer#DEFAULT_EXCLUDED_PACKAGES} are skipped in the signature.
+	 *
+	 * @param failure a failure cause
+	 * @param item    a reference to a failed item, E.G. its code reference
+	 * @return the failure signature
+	 */
+	@Nonnull
+	public String add(@Nonnull final Throwable failure, @Nonnull final String item) {
+		return add(failure, item, StackTraceRenderer.DEFAULT_EXCLUDED_PACKAGES);
+	}
+
+	/**
+	 * @return failure clusters, the most frequent first
+	 */
+	@Nonnull
+	public List<Cluster> getClusters() {
+		return clusters.values()
+				.stream()
+				.sorted(Comparator.comparingLong(Cluster::getCount).reversed().thenComparing(Cluster::getSignature))
+				.collect(Collectors.toList());
+	}
+
+	@Nullable
+	public Path getSummaryFile() {
+		return summaryFile;
+	}
+
+	/**
+	 * Writes the cluster summary as JSON into the summary file, if it is set.
+	 *
+	 * @throws IOException if the file can't be written
+	 */
+	public void writeSummary() throws IOException {
+		if (summaryFile == null) {
+			return;
+		}
+		Path directory = summaryFile.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		MAPPER.writeValue(summaryFile.toFile(), Collections.singletonMap("clusters", getClusters()));
+	}
+
+	/**
+	 * A group of failures with the same signature.
+	 */
+	public static class Cluster {
+		private final String signature;
+		private final String exception;
+		private final String message;
+		private final List<String> frames;
+		private final AtomicLong count = new AtomicLong();
+		private final List<String> items = new ArrayList<>();
+
+		private Cluster(@Nonnull final String signature, @Nonnull final String exception, @Nonnull final String message,
+				@Nonnull final List<String> frames) {
+			this.signature = signature;
+			this.exception = exception;
+			this.message = message;
+			this.frames = Collections.unmodifiableList(frames);
+		}
+
+		private void add(@Nonnull final String item) {
+			count.incrementAndGet();
+			synchronized (items) {
+				if (items.size() < MAX_SAMPLE_ITEMS) {
+					items.add(item);
+				}
+			}
+		}
+
+		@Nonnull
+		public String getSignature() {
+			return signature;
+		}
+
+		@Nonnull
+		public String getException() {
+			return exception;
+		}
+
+		@Nonnull
+		public String getMessage() {
+			return message;
+		}
+
+		@Nonnull
+		public List<String> getFrames() {
+			return frames;
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		/**
+		 * @return references to first failed items of the cluster, up to 10
+		 */
+		@Nonnull
+		public List<String> getItems() {
+			synchronized (items) {
+				return new ArrayList<>(items);
+			}
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.log;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limits of a number of logs sent by {@link com.epam.reportportal.jbehave.ReportPortalStoryReporter}, per test item and per
+ * launch. Each bucket holds up to a burst number of tokens and is refilled with a constant rate, a log consumes a token of its item bucket
+ * and a token of the launch bucket. A log is dropped if any of the buckets is empty, if the launch bucket is empty the item token is returned,
+ * so a launch limit does not use up item limits.
+ * <p>
+ * An instance is launch-scoped and thread-safe, item buckets are created with {@link #newItemBucket()}.
+ */
+public class LogRateLimiter {
+	private final double itemRate;
+	private final int itemBurst;
+	private final Bucket launchBucket;
+
+	/**
+	 * @param itemLogsPerSecond   a refill rate of item buckets, a non-positive value disables the item limit
+	 * @param itemBurst           a capacity of item buckets
+	 * @param launchLogsPerSecond a refill rate of the launch bucket, a non-positive value disables the launch limit
+	 * @param launchBurst         a capacity of the launch bucket
+	 */
+	public LogRateLimiter(double itemLogsPerSecond, int itemBurst, double launchLogsPerSecond, int launchBurst) {
+		itemRate = itemLogsPerSecond;
+		this.itemBurst = itemBurst;
+		launchBucket = launchLogsPerSecond > 0 ? new Bucket(launchLogsPerSecond, launchBurst) : null;
+	}
+
+	/**
+	 * @return a new bucket for a test item or null if the item limit is disabled
+	 */
+	@Nullable
+	public Bucket newItemBucket() {
+		return itemRate > 0 ? new Bucket(itemRate, itemBurst) : null;
+	}
+
+	/**
+	 * Takes a token for a log.
+	 *
+	 * @param itemBucket a bucket of an item the log belongs to
+	 * @return true if the log can be sent, false if it should be dropped
+	 */
+	public boolean tryAcquire(@Nullable final Bucket itemBucket) {
+		if (itemBucket != null && !itemBucket.tryAcquire()) {
+			return false;
+		}
+		if (launchBucket != null && !launchBucket.tryAcquire()) {
+			if (itemBucket != null) {
+				itemBucket.release();
+				itemBucket.dropped.incrementAndGet();
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return a number of logs dropped by the launch limit
+	 */
+	public long getDroppedCount() {
+		return launchBucket == null ? 0 : launchBucket.getDroppedCount();
+	}
+
+	/**
+	 * A token bucket.
+	 */
+	public static class Bucket {
+		private final double tokensPerNano;
+		private final double capacity;
+		private final AtomicLong dropped = new AtomicLong();
+		private double tokens;
+		private long refillTime;
+
+		/**
+		 * @param tokensPerSecond a refill rate
+		 * @param burst           a bucket capacity
+		 */
+		public Bucket(double tokensPerSecond, int burst) {
+			if (tokensPerSecond <= 0 || burst <= 0) {
+				throw new IllegalArgumentException("Rate and burst should be positive: " + tokensPerSecond + ", " + burst);
+			}
+			tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+			capacity = burst;
+			tokens = burst;
+			refillTime = System.nanoTime();
+		}
+
+		/**
+		 * @return true if a token was taken, false if the bucket is empty and the drop was counted
+		 */
+		public synchronized boolean tryAcquire() {
+			long now = System.nanoTime();
+			tokens = Math.min(capacity, tokens + (now - refillTime) * tokensPerNano);
+			refillTime = now;
+			if (tokens >= 1) {
+				tokens--;
+				return true;
+			}
+			dropped.incrementAndGet();
+			return false;
+		}
+
+		/**
+		 * Returns a taken token, E.G. if a log was dropped by another bucket.
+		 */
+		public synchronized void release() {
+			tokens = Math.min(capacity, tokens + 1);
+		}
+
+		/**
+		 * @return a number of dropped logs counted by the bucket
+		 */
+		public long getDroppedCount() {
+			return dropped.get();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.log;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+/**
+ * Renders a {@link Throwable} with its cause chain into a compact text. Unlike {@link Throwable#printStackTrace()} the renderer:
+ * <ul>
+ *     <li>collapses frames of excluded packages (JBehave step invocation, reflection, AspectJ, etc.) into a single line;</li>
+ *     <li>limits a number of rendered frames of each throwable;</li>
+ *     <li>folds frames which a cause shares with its enclosing throwable.</li>
+ * </ul>
+ * The renderer is immutable and thread-safe, so {@link com.epam.reportportal.jbehave.ReportPortalStoryReporter} calls it on the reporting
+ * thread instead of a thread which runs stories.
+ */
+public class StackTraceRenderer {
+	/**
+	 * Packages which frames are usually useless in a failure log: step invocation and reflection
+	 */
+	public static final List<String> DEFAULT_EXCLUDED_PACKAGES = Collections.unmodifiableList(Arrays.asList("org.jbehave.core.steps.",
+			"sun.reflect.",
+			"jdk.internal.reflect.",
+			"java.lang.reflect.",
+			"org.aspectj."
+	));
+
+	/**
+	 * A renderer with default package exclusions and without a depth limit
+	 */
+	public static final StackTraceRenderer DEFAULT = new StackTraceRenderer(DEFAULT_EXCLUDED_PACKAGES, Integer.MAX_VALUE);
+
+	private static final String CAUSE_CAPTION = "Caused by: ";
+	private static final String SUPPRESSED_CAPTION = "Suppressed: ";
+
+	private final String[] excludedPackages;
+	private final int maxDepth;
+
+	/**
+	 * @param excludedPackages package name prefixes, frames of classes in the packages are collapsed
+	 * @param maxDepth         a maximum number of rendered frames of each throwable in the chain
+	 */
+	public StackTraceRenderer(@Nonnull final Collection<String> excludedPackages, int maxDepth) {
+		if (maxDepth <= 0) {
+			throw new IllegalArgumentException("Stack trace depth should be positive: " + maxDepth);
+		}
+		this.excludedPackages = excludedPackages.toArray(new String[0]);
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @return package name prefixes which frames are collapsed
+	 */
+	@Nonnull
+	public List<String> getExcludedPackages() {
+		return Collections.unmodifiableList(Arrays.asList(excludedPackages));
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	protected boolean isExcluded(@Nonnull final StackTraceElement frame) {
+		String className = frame.getClassName();
+		for (String prefix : excludedPackages) {
+			if (className.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Renders a throwable with its causes and suppressed exceptions.
+	 *
+	 * @param throwable a throwable to render
+	 * @return the text
+	 */
+	@Nonnull
+	public String render(@Nonnull final Throwable throwable) {
+		StringBuilder result = new StringBuilder();
+		Set<Throwable> rendered = Collections.newSetFromMap(new IdentityHashMap<>());
+		render(result, throwable, new StackTraceElement[0], "", "", rendered);
+		return result.toString();
+	}
+
+	private void render(@Nonnull final StringBuilder result, @Nonnull final Throwable throwable,
+			@Nonnull final StackTraceElement[] enclosingTrace, @Nonnull final String caption, @Nonnull final String prefix,
+			@Nonnull final Set<Throwable> rendered) {
+		if (!rendered.add(throwable)) {
+			result.append(prefix).append(caption).append("[CIRCULAR REFERENCE: ").append(throwable).append("]\n");
+			return;
+		}
+		StackTraceElement[] trace = throwable.getStackTrace();
+		int last = trace.length - 1;
+		int enclosingLast = enclosingTrace.length - 1;
+		while (last >= 0 && enclosingLast >= 0 && trace[last].equals(enclosingTrace[enclosingLast])) {
+			last--;
+			enclosingLast--;
+		}
+		int common = trace.length - 1 - last;
+
+		result.append(prefix).append(caption).append(throwable).append('\n');
+		int depth = 0;
+		int excluded = 0;
+		int index = 0;
+		for (; index <= last && depth < maxDepth; index++) {
+			if (isExcluded(trace[index])) {
+				excluded++;
+				continue;
+			}
+			appendExcluded(result, prefix, excluded);
+			excluded = 0;
+			result.append(prefix).append("\tat ").append(trace[index]).append('\n');
+			depth++;
+		}
+		appendExcluded(result, prefix, excluded);
+		if (index <= last) {
+			result.append(prefix).append("\t... ").append(last - index + 1).append(" frames omitted\n");
+		}
+		if (common > 0) {
+			result.append(prefix).append("\t... ").append(common).append(" more\n");
+		}
+
+		for (Throwable suppressed : throwable.getSuppressed()) {
+			render(result, suppressed, trace, SUPPRESSED_CAPTION, prefix + "\t", rendered);
+		}
+		Throwable cause = throwable.getCause();
+		if (cause != null) {
+			render(result, cause, trace, CAUSE_CAPTION, prefix, rendered);
+		}
+	}
+
+	private static void appendExcluded(@Nonnull final StringBuilder result, @Nonnull final String prefix, int excluded) {
+		if (excluded > 0) {
+			result.append(prefix).append("\t... ").append(excluded).append(excluded == 1 ? " filtered frame\n" : " filtered frames\n");
+		}
+	}
+}
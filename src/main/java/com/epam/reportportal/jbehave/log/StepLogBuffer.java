@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.log;
+
+import com.epam.reportportal.listeners.LogLevel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A bounded ring buffer of log lines captured during a step. When the buffer is full the oldest lines are overwritten, so the buffer
+ * always keeps the tail of the step log. The buffer is thread-safe, since application logs may be captured from any thread.
+ */
+public class StepLogBuffer {
+	private final long[] times;
+	private final LogLevel[] levels;
+	private final String[] messages;
+	private long total;
+	private boolean closed;
+
+	/**
+	 * @param capacity a maximum number of lines to keep
+	 */
+	public StepLogBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Buffer capacity should be positive: " + capacity);
+		}
+		times = new long[capacity];
+		levels = new LogLevel[capacity];
+		messages = new String[capacity];
+	}
+
+	/**
+	 * Adds a log line to the buffer.
+	 *
+	 * @param level   a log level
+	 * @param message a log message
+	 * @return false if the buffer is already closed and the line was not captured
+	 */
+	public synchronized boolean add(@Nonnull final LogLevel level, @Nullable final String message) {
+		if (closed) {
+			return false;
+		}
+		int index = (int) (total % messages.length);
+		times[index] = System.currentTimeMillis();
+		levels[index] = level;
+		messages[index] = message;
+		total++;
+		return true;
+	}
+
+	/**
+	 * @return a number of lines added to the buffer, including overwritten ones
+	 */
+	public synchronized long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Closes the buffer and returns its last lines in the order they were captured.
+	 *
+	 * @param limit a maximum number of last lines to return
+	 * @return captured lines, empty if there is nothing to return
+	 */
+	@Nonnull
+	public synchronized List<Line> close(int limit) {
+		closed = true;
+		int count = (int) Math.min(Math.min(total, messages.length), Math.max(limit, 0));
+		if (count <= 0) {
+			return Collections.emptyList();
+		}
+		List<Line> result = new ArrayList<>(count);
+		for (long i = total - count; i < total; i++) {
+			int index = (int) (i % messages.length);
+			result.add(new Line(new Date(times[index]), levels[index], messages[index]));
+			messages[index] = null;
+		}
+		return result;
+	}
+
+	/**
+	 * A captured log line.
+	 */
+	public static final class Line {
+		private final Date time;
+		private final LogLevel level;
+		private final String message;
+
+		private Line(@Nonnull final Date time, @Nonnull final LogLevel level, @Nullable final String message) {
+			this.time = time;
+			this.level = level;
+			this.message = message;
+		}
+
+		/**
+		 * @return a time the line was captured
+		 */
+		@Nonnull
+		public Date getTime() {
+			return time;
+		}
+
+		/**
+		 * @return a log level
+		 */
+		@Nonnull
+		public LogLevel getLevel() {
+			return level;
+		}
+
+		/**
+		 * @return a log message
+		 */
+		@Nullable
+		public String getMessage() {
+			return message;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.log;
+
+import com.epam.reportportal.listeners.LogLevel;
+import com.epam.reportportal.service.LoggingContext;
+import com.epam.reportportal.service.tree.TestItemTree;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+
+import javax.annotation.Nonnull;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A launch-wide watchdog of running steps. Steps which run longer than a threshold get a progress log every interval, and optionally a
+ * stack trace of the thread which runs them, so a hanging step is visible on Report Portal before a story timeout cancels the story.
+ * <p>
+ * The watchdog uses one scheduled task on one daemon thread for all steps of the launch, the thread starts on the first step. Logging
+ * contexts of client-java are bound to threads which start items, so the watchdog thread sends progress logs with its own logging
+ * context, which is completed on the watchdog close.
+ */
+public class StepWatchdog implements AutoCloseable {
+	private static final String PROGRESS_MESSAGE = "The step is still running after %d ms";
+	private static final int MAX_THREAD_DUMP_DEPTH = 64;
+	private static final long CLOSE_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+	private final Supplier<LoggingContext> loggingContextFactory;
+	private final long threshold;
+	private final long interval;
+	private final boolean threadDump;
+	private final Map<TestItemTree.TestItemLeaf, Watch> steps = new ConcurrentHashMap<>();
+
+	private volatile ScheduledExecutorService scheduler;
+	private volatile LoggingContext loggingContext;
+	private boolean closed;
+
+	/**
+	 * @param loggingContext   a factory of a logging context to send progress logs with, it is called once on the watchdog thread
+	 * @param stallThreshold   a step duration after which the step is considered stalled
+	 * @param progressInterval an interval between progress logs of a stalled step
+	 * @param unit             a time unit of the threshold and the interval
+	 * @param dumpThread       true to attach a stack trace of a thread which runs a stalled step to progress logs
+	 */
+	public StepWatchdog(@Nonnull final Supplier<LoggingContext> loggingContext, long stallThreshold, long progressInterval,
+			@Nonnull final TimeUnit unit, boolean dumpThread) {
+		if (stallThreshold <= 0 || progressInterval <= 0) {
+			throw new IllegalArgumentException("Threshold and interval should be positive: " + stallThreshold + ", " + progressInterval);
+		}
+		loggingContextFactory = loggingContext;
+		threshold = unit.toNanos(stallThreshold);
+		interval = unit.toNanos(progressInterval);
+		threadDump = dumpThread;
+	}
+
+	private synchronized void schedule() {
+		if (scheduler != null || closed) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "rp-jbehave-step-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.min(threshold, interval);
+		scheduler.scheduleAtFixedRate(this::check, period, period, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Starts watching a step which runs on the current thread.
+	 *
+	 * @param step a step item leaf
+	 */
+	public void start(@Nonnull final TestItemTree.TestItemLeaf step) {
+		long now = System.nanoTime();
+		steps.put(step, new Watch(Thread.currentThread(), now, now - interval));
+		if (scheduler == null) {
+			schedule();
+		}
+	}
+
+	/**
+	 * Stops watching a step.
+	 *
+	 * @param step a step item leaf
+	 */
+	public void stop(@Nonnull final TestItemTree.TestItemLeaf step) {
+		steps.remove(step);
+	}
+
+	/**
+	 * @return a number of currently watched steps
+	 */
+	public int getWatchedCount() {
+		return steps.size();
+	}
+
+	private void check() {
+		long now = System.nanoTime();
+		steps.forEach((step, watch) -> {
+			long duration = now - watch.startTime;
+			if (duration < threshold || now - watch.reportTime < interval) {
+				return;
+			}
+			watch.reportTime = now;
+			String message = String.format(PROGRESS_MESSAGE, TimeUnit.NANOSECONDS.toMillis(duration));
+			if (threadDump) {
+				message = message + "\n" + dump(watch.thread);
+			}
+			String text = message;
+			if (loggingContext == null) {
+				loggingContext = loggingContextFactory.get();
+			}
+			loggingContext.emit(step.getItemId(), itemUuid -> {
+				SaveLogRQ rq = new SaveLogRQ();
+				rq.setItemUuid(itemUuid);
+				rq.setLevel(LogLevel.WARN.name());
+				rq.setLogTime(Calendar.getInstance().getTime());
+				rq.setMessage(text);
+				return rq;
+			});
+		});
+	}
+
+	@Nonnull
+	private static String dump(@Nonnull final Thread thread) {
+		StringBuilder result = new StringBuilder();
+		result.append('"').append(thread.getName()).append("\" ").append(thread.getState()).append('\n');
+		StackTraceElement[] trace = thread.getStackTrace();
+		int depth = Math.min(trace.length, MAX_THREAD_DUMP_DEPTH);
+		for (int i = 0; i < depth; i++) {
+			result.append("\tat ").append(trace[i]).append('\n');
+		}
+		if (trace.length > depth) {
+			result.append("\t... ").append(trace.length - depth).append(" more\n");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Stops the watchdog thread, E.G. on launch finish.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+		steps.clear();
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			try {
+				scheduler.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			scheduler = null;
+		}
+		if (loggingContext != null) {
+			loggingContext.completed().blockingAwait(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+			loggingContext = null;
+		}
+	}
+
+	private static final class Watch {
+		private final Thread thread;
+		private final long startTime;
+		private volatile long reportTime;
+
+		private Watch(@Nonnull final Thread workerThread, long stepStartTime, long firstReportTime) {
+			thread = workerThread;
+			startTime = stepStartTime;
+			reportTime = firstReportTime;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.rerun;
+
+import com.epam.reportportal.jbehave.ReportPortalStoryReporter;
+import com.epam.reportportal.listeners.ItemStatus;
+import com.epam.reportportal.listeners.ItemType;
+import com.epam.reportportal.service.tree.TestItemTree;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.reactivex.Maybe;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * A machine-readable list of failed stories, scenarios and example rows of a launch. The manifest is built from the test item tree
+ * statuses, written by {@link com.epam.reportportal.jbehave.ReportPortalFormat} on launch finish, and used to rerun only failed items with
+ * {@link #getStoryPaths()} and {@link RerunStoryParser}.
+ * <p>
+ * An empty scenario list of a story means the whole story should be rerun, E.G. if a lifecycle method or a given story failed. An empty
+ * example list of a scenario means all its rows should be rerun.
+ */
+public class RerunManifest {
+	private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private static final Set<ItemStatus> FAILED_STATUSES = EnumSet.of(ItemStatus.FAILED, ItemStatus.INTERRUPTED);
+
+	private String launchUuid;
+	private List<StoryEntry> stories = new ArrayList<>();
+
+	@Nullable
+	public String getLaunchUuid() {
+		return launchUuid;
+	}
+
+	public void setLaunchUuid(@Nullable String launchUuid) {
+		this.launchUuid = launchUuid;
+	}
+
+	@Nonnull
+	public List<StoryEntry> getStories() {
+		return stories;
+	}
+
+	public void setStories(@Nonnull List<StoryEntry> stories) {
+		this.stories = stories;
+	}
+
+	/**
+	 * @return paths of stories to rerun, for {@link org.jbehave.core.embedder.Embedder#runStoriesAsPaths(List)}
+	 */
+	@JsonIgnore
+	@Nonnull
+	public List<String> getStoryPaths() {
+		return stories.stream().map(StoryEntry::getPath).collect(Collectors.toList());
+	}
+
+	/**
+	 * @param storyPath a story path
+	 * @return a story entry if the story failed
+	 */
+	@Nonnull
+	public Optional<StoryEntry> getStory(@Nonnull final String storyPath) {
+		return stories.stream().filter(s -> storyPath.equals(s.getPath())).findAny();
+	}
+
+	private static boolean isFailed(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		return leaf.getStatus() != null && FAILED_STATUSES.contains(leaf.getStatus());
+	}
+
+	@Nonnull
+	private static ScenarioEntry scenarioEntry(@Nonnull final String title, @Nonnull final TestItemTree.TestItemLeaf scenario) {
+		ScenarioEntry entry = new ScenarioEntry();
+		entry.setTitle(title);
+		for (TestItemTree.TestItemLeaf child : scenario.getChildItems().values()) {
+			if (child.getType() != ItemType.SUITE) {
+				continue; // a failed step or lifecycle method without examples, the whole scenario should be rerun
+			}
+			Map<String, String> row = child.getAttribute(ReportPortalStoryReporter.PARAMETERS);
+			if (row != null && isFailed(child)) {
+				entry.getExamples().add(new LinkedHashMap<>(row));
+			}
+		}
+		return entry;
+	}
+
+	@Nonnull
+	private static StoryEntry storyEntry(@Nonnull final String path, @Nonnull final TestItemTree.TestItemLeaf story) {
+		StoryEntry entry = new StoryEntry();
+		entry.setPath(path);
+		for (Map.Entry<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> child : story.getChildItems().entrySet()) {
+			TestItemTree.TestItemLeaf leaf = child.getValue();
+			if (!isFailed(leaf)) {
+				continue;
+			}
+			if (leaf.getType() != ItemType.SCENARIO) {
+				// a failed lifecycle method or given story, rerun the whole story
+				entry.getScenarios().clear();
+				return entry;
+			}
+			entry.getScenarios().add(scenarioEntry(child.getKey().getName(), leaf));
+		}
+		return entry;
+	}
+
+	/**
+	 * Builds a manifest of failed items of a test item tree. Launch UUID in the manifest can be passed to {@code rp.rerun.of} property
+	 * to report the rerun into the same launch.
+	 *
+	 * @param itemTree a test item tree of a finished launch
+	 * @return the manifest
+	 */
+	@Nonnull
+	public static RerunManifest fromTree(@Nonnull final TestItemTree itemTree) {
+		RerunManifest manifest = new RerunManifest();
+		try {
+			manifest.setLaunchUuid(ofNullable(itemTree.getLaunchId()).map(Maybe::blockingGet).orElse(null));
+		} catch (RuntimeException e) {
+			// launch was not started
+		}
+		for (Map.Entry<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> story : itemTree.getTestItems().entrySet()) {
+			TestItemTree.TestItemLeaf leaf = story.getValue();
+			if (leaf.getType() == ItemType.STORY && isFailed(leaf)) {
+				manifest.getStories().add(storyEntry(story.getKey().getName(), leaf));
+			}
+		}
+		manifest.getStories().sort(Comparator.comparing(StoryEntry::getPath));
+		return manifest;
+	}
+
+	/**
+	 * Writes the manifest as JSON into a file.
+	 *
+	 * @param file a file to write
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(@Nonnull final Path file) throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		MAPPER.writeValue(file.toFile(), this);
+	}
+
+	/**
+	 * Reads a manifest from a JSON file.
+	 *
+	 * @param file a file to read
+	 * @return the manifest
+	 * @throws IOException if the file can't be read or parsed
+	 */
+	@Nonnull
+	public static RerunManifest read(@Nonnull final Path file) throws IOException {
+		return MAPPER.readValue(file.toFile(), RerunManifest.class);
+	}
+
+	/**
+	 * A failed story.
+	 */
+	public static class StoryEntry {
+		private String path;
+		private List<ScenarioEntry> scenarios = new ArrayList<>();
+
+		public String getPath() {
+			return path;
+		}
+
+		public void setPath(String path) {
+			this.path = path;
+		}
+
+		@Nonnull
+		public List<ScenarioEntry> getScenarios() {
+			return scenarios;
+		}
+
+		public void setScenarios(@Nonnull List<ScenarioEntry> scenarios) {
+			this.scenarios = scenarios;
+		}
+	}
+
+	/**
+	 * A failed scenario, the title is the scenario name in the test item tree, E.G. "No name" for a scenario without a title.
+	 */
+	public static class ScenarioEntry {
+		private String title;
+		private List<Map<String, String>> examples = new ArrayList<>();
+
+		public String getTitle() {
+			return title;
+		}
+
+		public void setTitle(String title) {
+			this.title = title;
+		}
+
+		@Nonnull
+		public List<Map<String, String>> getExamples() {
+			return examples;
+		}
+
+		public void setExamples(@Nonnull List<Map<String, String>> examples) {
+			this.examples = examples;
+		}
+	}
+}
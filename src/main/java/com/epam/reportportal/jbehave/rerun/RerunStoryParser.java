@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.rerun;
+
+import com.epam.reportportal.jbehave.ReportPortalStoryReporter;
+import org.jbehave.core.model.ExamplesTable;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.StoryParser;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * A {@link StoryParser} decorator which leaves only failed scenarios and example rows from a {@link RerunManifest} in parsed stories.
+ * Stories which are not in the manifest or which should be rerun in full are returned as is. Use it together with
+ * {@link RerunManifest#getStoryPaths()}:
+ * <pre>{@code
+ * RerunManifest manifest = RerunManifest.read(Paths.get("build/rerun.json"));
+ * embedder.useConfiguration(configuration.useStoryParser(new RerunStoryParser(new RegexStoryParser(), manifest)));
+ * embedder.runStoriesAsPaths(manifest.getStoryPaths());
+ * }</pre>
+ * Scenarios are matched by their names in the test item tree, so scenarios with the same title are rerun together. If a reporter overrides
+ * {@link ReportPortalStoryReporter#getScenarioName(Scenario)}, pass the same naming function into the parser.
+ */
+public class RerunStoryParser implements StoryParser {
+
+	private final StoryParser delegate;
+	private final RerunManifest manifest;
+	private final Function<Scenario, String> scenarioName;
+
+	public RerunStoryParser(@Nonnull final StoryParser storyParser, @Nonnull final RerunManifest rerunManifest,
+			@Nonnull final Function<Scenario, String> scenarioNameFunction) {
+		delegate = storyParser;
+		manifest = rerunManifest;
+		scenarioName = scenarioNameFunction;
+	}
+
+	public RerunStoryParser(@Nonnull final StoryParser storyParser, @Nonnull final RerunManifest rerunManifest) {
+		this(storyParser, rerunManifest, RerunStoryParser::getScenarioName);
+	}
+
+	/**
+	 * The same as the default {@link ReportPortalStoryReporter#getScenarioName(Scenario)}.
+	 *
+	 * @param scenario JBehave's scenario object
+	 * @return the scenario name
+	 */
+	@Nonnull
+	private static String getScenarioName(@Nonnull final Scenario scenario) {
+		String title = scenario.getTitle();
+		return isBlank(title) ? ReportPortalStoryReporter.NO_NAME : title;
+	}
+
+	@Override
+	public Story parseStory(String storyAsText) {
+		return delegate.parseStory(storyAsText);
+	}
+
+	@Override
+	public Story parseStory(String storyAsText, String storyPath) {
+		Story story = delegate.parseStory(storyAsText, storyPath);
+		return manifest.getStory(storyPath).filter(s -> !s.getScenarios().isEmpty()).map(s -> filter(story, s)).orElse(story);
+	}
+
+	@Nonnull
+	private static RerunManifest.ScenarioEntry merge(@Nonnull final RerunManifest.ScenarioEntry first,
+			@Nonnull final RerunManifest.ScenarioEntry second) {
+		RerunManifest.ScenarioEntry result = new RerunManifest.ScenarioEntry();
+		result.setTitle(first.getTitle());
+		if (!first.getExamples().isEmpty() && !second.getExamples().isEmpty()) {
+			result.getExamples().addAll(first.getExamples());
+			result.getExamples().addAll(second.getExamples());
+		}
+		return result;
+	}
+
+	@Nonnull
+	private Story filter(@Nonnull final Story story, @Nonnull final RerunManifest.StoryEntry entry) {
+		Map<String, RerunManifest.ScenarioEntry> failed = entry.getScenarios()
+				.stream()
+				.collect(Collectors.toMap(RerunManifest.ScenarioEntry::getTitle, s -> s, RerunStoryParser::merge));
+		List<Scenario> scenarios = new ArrayList<>();
+		for (Scenario scenario : story.getScenarios()) {
+			RerunManifest.ScenarioEntry scenarioEntry = failed.get(scenarioName.apply(scenario));
+			if (scenarioEntry != null) {
+				scenarios.add(filter(scenario, scenarioEntry));
+			}
+		}
+		return new Story(story.getPath(),
+				story.getDescription(),
+				story.getMeta(),
+				story.getNarrative(),
+				story.getGivenStories(),
+				story.getLifecycle(),
+				scenarios
+		);
+	}
+
+	@Nonnull
+	private static Scenario filter(@Nonnull final Scenario scenario, @Nonnull final RerunManifest.ScenarioEntry entry) {
+		ExamplesTable table = scenario.getExamplesTable();
+		if (entry.getExamples().isEmpty() || table == null || table.getRowCount() == 0) {
+			return scenario;
+		}
+		Set<Map<String, String>> failedRows = new HashSet<>(entry.getExamples());
+		List<Map<String, String>> rows = table.getRows().stream().filter(failedRows::contains).collect(Collectors.toList());
+		if (rows.isEmpty()) {
+			return scenario; // the table was changed since the failed run, rerun all rows
+		}
+		return new Scenario(scenario.getTitle(), scenario.getMeta(), scenario.getGivenStories(), table.withRows(rows), scenario.getSteps());
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.sharding;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * A local store of story durations, keyed by story path (which is also a story code reference). Each new measurement is merged into an
+ * exponentially weighted moving average, so a single slow or fast run does not change the estimation much.
+ * <p>
+ * The file format is a plain text, one story per line: a duration in milliseconds, a tab character and the story path.
+ * <p>
+ * Several JVMs can share the file, E.G. parallel forks of a build: on save the file is read again under a lock of a sibling {@code .lock}
+ * file and measurements of this instance are merged into the stored durations, so durations recorded by other JVMs are not lost.
+ */
+public class DurationHistory {
+	private static final double DEFAULT_SMOOTHING = 0.3;
+	private static final char SEPARATOR = '\t';
+	private static final String LOCK_SUFFIX = ".lock";
+
+	private final Path file;
+	private final double smoothing;
+	private final Map<String, Long> durations = new ConcurrentHashMap<>();
+	private final Map<String, List<Long>> measurements = new HashMap<>();
+
+	/**
+	 * @param historyFile     a file to store the history in
+	 * @param smoothingFactor a weight of a new measurement, from 0 (exclusive) to 1 (inclusive)
+	 */
+	public DurationHistory(@Nonnull final Path historyFile, double smoothingFactor) {
+		if (smoothingFactor <= 0 || smoothingFactor > 1) {
+			throw new IllegalArgumentException("Smoothing factor should be in (0, 1] range: " + smoothingFactor);
+		}
+		file = historyFile;
+		smoothing = smoothingFactor;
+	}
+
+	public DurationHistory(@Nonnull final Path historyFile) {
+		this(historyFile, DEFAULT_SMOOTHING);
+	}
+
+	/**
+	 * Creates a history instance and reads stored durations from the file, if it exists.
+	 *
+	 * @param historyFile a file to store the history in
+	 * @return the history
+	 * @throws IOException if the file exists and can't be read
+	 */
+	@Nonnull
+	public static DurationHistory load(@Nonnull final Path historyFile) throws IOException {
+		DurationHistory history = new DurationHistory(historyFile);
+		history.read();
+		return history;
+	}
+
+	private void read() throws IOException {
+		durations.putAll(readFile());
+	}
+
+	@Nonnull
+	private Map<String, Long> readFile() throws IOException {
+		Map<String, Long> result = new HashMap<>();
+		if (!Files.exists(file)) {
+			return result;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int separator = line.indexOf(SEPARATOR);
+				if (separator <= 0) {
+					continue;
+				}
+				try {
+					result.put(line.substring(separator + 1), Long.parseLong(line.substring(0, separator)));
+				} catch (NumberFormatException ignore) {
+					// skip a broken line, it will be overwritten on save
+				}
+			}
+		}
+		return result;
+	}
+
+	private long smooth(long previous, long current) {
+		return Math.round(previous + smoothing * (current - previous));
+	}
+
+	/**
+	 * Merges measurements recorded since the last save into the history file. The file is read again and written under a lock of a sibling
+	 * {@code .lock} file, so parallel JVMs do not overwrite durations of each other. The file is replaced atomically where the file system
+	 * supports it, so parallel readers never see a partially written file.
+	 *
+	 * @throws IOException if the file can't be written
+	 */
+	public synchronized void save() throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		Map<String, List<Long>> saved;
+		synchronized (measurements) {
+			saved = new HashMap<>(measurements);
+			measurements.clear();
+		}
+		Path lockFile = file.resolveSibling(file.getFileName().toString() + LOCK_SUFFIX);
+		try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			FileLock lock = channel.lock();
+			try {
+				Map<String, Long> stored = readFile();
+				saved.forEach((story, values) -> {
+					Iterator<Long> iterator = values.iterator();
+					long duration = ofNullable(stored.get(story)).orElseGet(iterator::next);
+					while (iterator.hasNext()) {
+						duration = smooth(duration, iterator.next());
+					}
+					stored.put(story, duration);
+				});
+				write(directory, stored);
+				durations.putAll(stored);
+			} finally {
+				lock.release();
+			}
+		} catch (IOException | RuntimeException e) {
+			// keep the measurements for the next save
+			synchronized (measurements) {
+				saved.forEach((story, values) -> measurements.merge(story, values, (recent, unsaved) -> {
+					List<Long> result = new ArrayList<>(unsaved);
+					result.addAll(recent);
+					return result;
+				}));
+			}
+			throw e;
+		}
+	}
+
+	private void write(@Nullable final Path directory, @Nonnull final Map<String, Long> stored) throws IOException {
+		Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				for (Map.Entry<String, Long> entry : new TreeMap<>(stored).entrySet()) {
+					writer.write(String.valueOf(entry.getValue()));
+					writer.write(SEPARATOR);
+					writer.write(entry.getKey());
+					writer.newLine();
+				}
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Merges a new story duration measurement into the history.
+	 *
+	 * @param storyPath a story path
+	 * @param duration  the story duration in milliseconds
+	 */
+	public void record(@Nonnull final String storyPath, long duration) {
+		synchronized (measurements) {
+			measurements.computeIfAbsent(storyPath, k -> new ArrayList<>()).add(duration);
+			durations.merge(storyPath, duration, this::smooth);
+		}
+	}
+
+	/**
+	 * @param storyPath a story path
+	 * @return a smoothed duration of the story in milliseconds or null if the story was never measured
+	 */
+	@Nullable
+	public Long get(@Nonnull final String storyPath) {
+		return durations.get(storyPath);
+	}
+
+	/**
+	 * @return an unmodifiable view of all stored durations by story paths
+	 */
+	@Nonnull
+	public Map<String, Long> getDurations() {
+		return Collections.unmodifiableMap(durations);
+	}
+
+	@Nonnull
+	public Path getFile() {
+		return file;
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.sharding;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+/**
+ * Splits story paths into shards with close total durations, to run them on different nodes with
+ * {@link org.jbehave.core.embedder.Embedder#runStoriesAsPaths(List)}. Story durations are taken from a {@link DurationHistory}, stories
+ * without history are estimated with an average known duration.
+ * <p>
+ * The balancing uses the longest processing time first strategy: stories are sorted by duration in descending order and each of them is
+ * added to the shard with the least total duration.
+ */
+public class StoryShards {
+	private static final long DEFAULT_DURATION = 1;
+
+	private StoryShards() {
+		throw new AssertionError("No instances should exist for the class!");
+	}
+
+	private static long estimate(@Nonnull final Collection<String> storyPaths, @Nonnull final DurationHistory history) {
+		long sum = 0;
+		int count = 0;
+		for (String path : storyPaths) {
+			Long duration = history.get(path);
+			if (duration != null) {
+				sum += duration;
+				count++;
+			}
+		}
+		return count > 0 ? Math.max(DEFAULT_DURATION, sum / count) : DEFAULT_DURATION;
+	}
+
+	/**
+	 * Splits story paths into balanced shards.
+	 *
+	 * @param storyPaths story paths to split
+	 * @param shardCount a number of shards
+	 * @param history    story duration history
+	 * @return a list of shards, each shard is a list of story paths, the list size is equal to the shard count
+	 */
+	@Nonnull
+	public static List<List<String>> balance(@Nonnull final Collection<String> storyPaths, int shardCount,
+			@Nonnull final DurationHistory history) {
+		if (shardCount <= 0) {
+			throw new IllegalArgumentException("Shard count should be positive: " + shardCount);
+		}
+		long unknown = estimate(storyPaths, history);
+		Map<String, Long> durations = new HashMap<>();
+		storyPaths.forEach(p -> durations.put(p, Optional.ofNullable(history.get(p)).orElse(unknown)));
+		List<String> sorted = new ArrayList<>(durations.keySet());
+		// the path order makes the result stable for stories with equal durations, so all nodes get the same split
+		sorted.sort(Comparator.<String>comparingLong(durations::get).reversed().thenComparing(Comparator.naturalOrder()));
+
+		List<List<String>> shards = new ArrayList<>(shardCount);
+		long[] loads = new long[shardCount];
+		PriorityQueue<Integer> queue = new PriorityQueue<>(shardCount,
+				Comparator.<Integer>comparingLong(i -> loads[i]).thenComparingInt(i -> i)
+		);
+		for (int i = 0; i < shardCount; i++) {
+			shards.add(new ArrayList<>());
+			queue.add(i);
+		}
+		for (String path : sorted) {
+			int shard = queue.poll();
+			shards.get(shard).add(path);
+			loads[shard] += durations.get(path);
+			queue.add(shard);
+		}
+		return shards;
+	}
+
+	/**
+	 * Returns story paths of one shard, E.G. for the current CI node.
+	 *
+	 * @param storyPaths story paths to split
+	 * @param shardCount a number of shards
+	 * @param shardIndex a zero-based index of the shard to return
+	 * @param history    story duration history
+	 * @return story paths of the shard
+	 */
+	@Nonnull
+	public static List<String> shard(@Nonnull final Collection<String> storyPaths, int shardCount, int shardIndex,
+			@Nonnull final DurationHistory history) {
+		if (shardIndex < 0 || shardIndex >= shardCount) {
+			throw new IllegalArgumentException("Shard index should be in [0, " + shardCount + ") range: " + shardIndex);
+		}
+		return balance(storyPaths, shardCount, history).get(shardIndex);
+	}
+}
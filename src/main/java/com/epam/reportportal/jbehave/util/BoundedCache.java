@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache with a maximum size. When the cache is full the oldest entries are evicted one by one, so a burst of new keys does
+ * not drop the whole cache. Reads do not take locks, a value can be calculated twice if two threads miss the same key at the same time.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class BoundedCache<K, V> {
+	private final int maxSize;
+	private final Map<K, V> values = new ConcurrentHashMap<>();
+	private final Queue<K> order = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * @param cacheSize a maximum number of cached entries
+	 */
+	public BoundedCache(int cacheSize) {
+		if (cacheSize <= 0) {
+			throw new IllegalArgumentException("Cache size should be positive: " + cacheSize);
+		}
+		maxSize = cacheSize;
+	}
+
+	/**
+	 * @param key a key
+	 * @return a cached value or null if the key is not cached
+	 */
+	@Nullable
+	public V get(@Nonnull final K key) {
+		return values.get(key);
+	}
+
+	/**
+	 * Caches a value if the key is not cached yet.
+	 *
+	 * @param key   a key
+	 * @param value a value to cache
+	 * @return the previously cached value or null if the value was cached
+	 */
+	@Nullable
+	public V putIfAbsent(@Nonnull final K key, @Nonnull final V value) {
+		V previous = values.putIfAbsent(key, value);
+		if (previous == null) {
+			order.add(key);
+			while (values.size() > maxSize) {
+				K eldest = order.poll();
+				if (eldest == null) {
+					break;
+				}
+				values.remove(eldest);
+			}
+		}
+		return previous;
+	}
+
+	/**
+	 * Returns a cached value or calculates and caches a new one.
+	 *
+	 * @param key      a key
+	 * @param function a function to calculate a value, the value is not cached if the function returns null
+	 * @return the value
+	 */
+	@Nullable
+	public V computeIfAbsent(@Nonnull final K key, @Nonnull final Function<? super K, ? extends V> function) {
+		V result = values.get(key);
+		if (result == null) {
+			result = function.apply(key);
+			if (result != null) {
+				V previous = putIfAbsent(key, result);
+				if (previous != null) {
+					result = previous;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return a number of cached entries
+	 */
+	public int size() {
+		return values.size();
+	}
+}
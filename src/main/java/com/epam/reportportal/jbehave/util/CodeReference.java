@@ -0,0 +1,148 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A code reference stored as a parent reference plus the last path segment, so a prefix is shared by all its descendants instead of being
+ * copied into every child code reference. Child references are interned while they are in use: the same segment under the same parent
+ * gives the same instance as long as the instance is referenced somewhere else, E.G. by a test item leaf. A parent holds its children
+ * weakly, so children of released items are collected and pruned. The full code reference string is built only by {@link #toString()}.
+ */
+public class CodeReference {
+	private static final char DELIMITER = '/';
+	private static final ReferenceQueue<CodeReference> RELEASED = new ReferenceQueue<>();
+
+	private final CodeReference parent;
+	private final String segment;
+	private final int length;
+	private volatile Map<String, ChildReference> children;
+
+	private CodeReference(@Nullable final CodeReference parent, @Nonnull final String segment) {
+		this.parent = parent;
+		this.segment = segment;
+		length = parent == null ? segment.length() : parent.length + 1 + segment.length();
+	}
+
+	/**
+	 * Creates a root code reference.
+	 *
+	 * @param value a root code reference string, usually a story path
+	 * @return the code reference
+	 */
+	@Nonnull
+	public static CodeReference of(@Nonnull final String value) {
+		return new CodeReference(null, value);
+	}
+
+	/**
+	 * Returns a child code reference with the given segment, the same instance is returned for the same segment.
+	 *
+	 * @param childSegment the last path segment of the child
+	 * @return the child code reference
+	 */
+	@Nonnull
+	public CodeReference child(@Nonnull final String childSegment) {
+		pruneReleased();
+		Map<String, ChildReference> result = children;
+		if (result == null) {
+			synchronized (this) {
+				result = children;
+				if (result == null) {
+					children = result = new ConcurrentHashMap<>();
+				}
+			}
+		}
+		while (true) {
+			ChildReference reference = result.get(childSegment);
+			CodeReference child = reference == null ? null : reference.get();
+			if (child != null) {
+				return child;
+			}
+			child = new CodeReference(this, childSegment);
+			ChildReference newReference = new ChildReference(child, result, childSegment);
+			if (reference == null ?
+					result.putIfAbsent(childSegment, newReference) == null :
+					result.replace(childSegment, reference, newReference)) {
+				return child;
+			}
+		}
+	}
+
+	private static void pruneReleased() {
+		for (Reference<? extends CodeReference> released = RELEASED.poll(); released != null; released = RELEASED.poll()) {
+			ChildReference reference = (ChildReference) released;
+			reference.owner.remove(reference.segment, reference);
+		}
+	}
+
+	@Nullable
+	public CodeReference getParent() {
+		return parent;
+	}
+
+	@Nonnull
+	public String getSegment() {
+		return segment;
+	}
+
+	/**
+	 * @return the full code reference string length
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Builds the full code reference string.
+	 *
+	 * @return the code reference string
+	 */
+	@Override
+	public String toString() {
+		char[] result = new char[length];
+		int end = length;
+		for (CodeReference current = this; current != null; current = current.parent) {
+			int start = end - current.segment.length();
+			current.segment.getChars(0, current.segment.length(), result, start);
+			end = start;
+			if (current.parent != null) {
+				result[--end] = DELIMITER;
+			}
+		}
+		return new String(result);
+	}
+
+	private static final class ChildReference extends WeakReference<CodeReference> {
+		private final Map<String, ChildReference> owner;
+		private final String segment;
+
+		private ChildReference(@Nonnull final CodeReference child, @Nonnull final Map<String, ChildReference> owner,
+				@Nonnull final String segment) {
+			super(child, RELEASED);
+			this.owner = owner;
+			this.segment = segment;
+		}
+	}
+}
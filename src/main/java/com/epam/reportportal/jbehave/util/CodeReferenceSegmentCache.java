@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.util;
+
+import com.epam.reportportal.listeners.ItemType;
+import com.epam.reportportal.service.tree.TestItemTree;
+
+import javax.annotation.Nonnull;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A cache of code reference segments and item tree keys by raw story, scenario and step names. Steps are reused across scenarios and
+ * example rows, so each name is sanitized and formatted only once.
+ */
+public class CodeReferenceSegmentCache {
+	private static final int DEFAULT_MAX_SIZE = 8192;
+	private static final String SEGMENT_START = "[";
+	private static final String SEGMENT_TYPE_DELIMITER = ":";
+	private static final String SEGMENT_END = "]";
+
+	private final Map<ItemType, BoundedCache<String, Segment>> cache = new EnumMap<>(ItemType.class);
+
+	public CodeReferenceSegmentCache(int cacheSize) {
+		for (ItemType type : ItemType.values()) {
+			cache.put(type, new BoundedCache<>(cacheSize));
+		}
+	}
+
+	public CodeReferenceSegmentCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Removes line breaks from a name, returns the same string if there are no line breaks.
+	 *
+	 * @param name a raw name
+	 * @return the name without line breaks
+	 */
+	@Nonnull
+	public static String sanitize(@Nonnull final String name) {
+		if (name.indexOf('\n') < 0 && name.indexOf('\r') < 0) {
+			return name;
+		}
+		StringBuilder sb = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c != '\n' && c != '\r') {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Formats a code reference segment.
+	 *
+	 * @param type a segment type name
+	 * @param name a raw item name
+	 * @return the segment string
+	 */
+	@Nonnull
+	public static String segment(@Nonnull final String type, @Nonnull final String name) {
+		String sanitized = sanitize(name);
+		return new StringBuilder(type.length() + sanitized.length() + 3).append(SEGMENT_START)
+				.append(type)
+				.append(SEGMENT_TYPE_DELIMITER)
+				.append(sanitized)
+				.append(SEGMENT_END)
+				.toString();
+	}
+
+	/**
+	 * Returns a cached code reference segment and an item tree key for the given item.
+	 *
+	 * @param type an item type
+	 * @param name a raw item name
+	 * @return the segment
+	 */
+	@Nonnull
+	public Segment get(@Nonnull final ItemType type, @Nonnull final String name) {
+		return Objects.requireNonNull(cache.get(type)
+				.computeIfAbsent(name, n -> new Segment(TestItemTree.ItemTreeKey.of(n), segment(type.name(), n))));
+	}
+
+	/**
+	 * An item tree key and a code reference segment of an item.
+	 */
+	public static class Segment {
+		private final TestItemTree.ItemTreeKey key;
+		private final String value;
+
+		private Segment(@Nonnull final TestItemTree.ItemTreeKey itemKey, @Nonnull final String segmentValue) {
+			key = itemKey;
+			value = segmentValue;
+		}
+
+		@Nonnull
+		public TestItemTree.ItemTreeKey getKey() {
+			return key;
+		}
+
+		@Nonnull
+		public String getValue() {
+			return value;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.util;
+
+import com.epam.reportportal.jbehave.ReportPortalStoryReporter;
+import com.epam.reportportal.service.tree.TestItemTree;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Secondary indexes of test item leaves by code reference and by test case ID, to find an item of a launch without walking the test item
+ * tree. Leaves are added when story reporters start them and follow the tree retention: compacted leaves are replaced with their compact
+ * copies and leaves released from the tree are removed.
+ * <p>
+  * Several items can share a code reference, E.G. steps of different example rows, the index keeps the last started one. The index is not
+ * bounded and holds the leaves strongly: a leaf is removed only when a story reporter releases it from the tree, E.G. in streaming examples
+ * mode. With the default tree retention nothing is released, so the index grows with the number of distinct code references and test case
+ * IDs of the launch. The index is disabled by default, see {@link com.epam.reportportal.jbehave.ReportPortalFormat#setItemIndexing(boolean)}.
+ */
+public class ItemIndex {
+	private final Map<String, TestItemTree.TestItemLeaf> codeRefs = new ConcurrentHashMap<>();
+	private final Map<String, TestItemTree.TestItemLeaf> testCaseIds = new ConcurrentHashMap<>();
+
+	private static void put(@Nonnull final Map<String, TestItemTree.TestItemLeaf> map, @Nullable final String key,
+			@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		if (key != null) {
+			map.put(key, leaf);
+		}
+	}
+
+	@Nullable
+	private static String getCodeRef(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		return ReportPortalStoryReporter.getLeafCodeRef(leaf);
+	}
+
+	@Nullable
+	private static String getTestCaseId(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		return leaf.getAttribute(ReportPortalStoryReporter.TEST_CASE_ID);
+	}
+
+	/**
+	 * Adds a started item leaf into the index.
+	 *
+	 * @param leaf the item leaf, which holds the code reference and the test case ID attributes
+	 */
+	public void add(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		put(codeRefs, getCodeRef(leaf), leaf);
+		put(testCaseIds, getTestCaseId(leaf), leaf);
+	}
+
+	/**
+	 * Replaces an item leaf and its child leaves with their copies, E.G. compact ones.
+	 *
+	 * @param leaf a leaf in the index
+	 * @param copy the leaf copy with the same child keys, child leaves which were not copied are the same instances
+	 */
+	public void replace(@Nonnull final TestItemTree.TestItemLeaf leaf, @Nonnull final TestItemTree.TestItemLeaf copy) {
+		if (leaf == copy) {
+			return;
+		}
+		ofNullable(getCodeRef(leaf)).ifPresent(k -> codeRefs.replace(k, leaf, copy));
+		ofNullable(getTestCaseId(leaf)).ifPresent(k -> testCaseIds.replace(k, leaf, copy));
+		for (Map.Entry<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> child : leaf.getChildItems().entrySet()) {
+			ofNullable(copy.getChildItems().get(child.getKey())).ifPresent(c -> replace(child.getValue(), c));
+		}
+	}
+
+	/**
+	 * Removes an item leaf and its child leaves from the index.
+	 *
+	 * @param leaf a leaf in the index
+	 */
+	public void remove(@Nonnull final TestItemTree.TestItemLeaf leaf) {
+		ofNullable(getCodeRef(leaf)).ifPresent(k -> codeRefs.remove(k, leaf));
+		ofNullable(getTestCaseId(leaf)).ifPresent(k -> testCaseIds.remove(k, leaf));
+		leaf.getChildItems().values().forEach(this::remove);
+	}
+
+	/**
+	 * @param codeRef an item code reference
+	 * @return the last started item leaf with the code reference
+	 */
+	@Nonnull
+	public Optional<TestItemTree.TestItemLeaf> getByCodeRef(@Nonnull final String codeRef) {
+		return ofNullable(codeRefs.get(codeRef));
+	}
+
+	/**
+	 * @param testCaseId an item test case ID
+	 * @return the last started item leaf with the test case ID
+	 */
+	@Nonnull
+	public Optional<TestItemTree.TestItemLeaf> getByTestCaseId(@Nonnull final String testCaseId) {
+		return ofNullable(testCaseIds.get(testCaseId));
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.util;
+
+import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
+import org.jbehave.core.model.Meta;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * A cache of attribute sets converted from JBehave's {@link Meta} objects. The same meta combinations usually repeat across many stories
+ * and scenarios, so each of them is converted only once and the same unmodifiable set is returned for equal metas. The set and its
+ * attributes are shared between requests, so they should be copied before any change.
+ */
+public class MetaAttributesCache {
+	private static final int DEFAULT_MAX_SIZE = 1024;
+
+	private final Set<String> ignoredNames;
+	private final BoundedCache<List<String>, Set<ItemAttributesRQ>> cache;
+
+	/**
+	 * @param cacheSize        a maximum number of cached meta combinations
+	 * @param ignoredMetaNames names of meta properties which are not converted into attributes, E.G. agent settings
+	 */
+	public MetaAttributesCache(int cacheSize, @Nonnull final Collection<String> ignoredMetaNames) {
+		cache = new BoundedCache<>(cacheSize);
+		ignoredNames = new HashSet<>(ignoredMetaNames);
+	}
+
+	public MetaAttributesCache(int cacheSize) {
+		this(cacheSize, Collections.emptySet());
+	}
+
+	public MetaAttributesCache(@Nonnull final Collection<String> ignoredMetaNames) {
+		this(DEFAULT_MAX_SIZE, ignoredMetaNames);
+	}
+
+	public MetaAttributesCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	@Nonnull
+	private List<String> key(@Nonnull final Meta meta) {
+		Set<String> names = meta.getPropertyNames();
+		List<String> key = new ArrayList<>(names.size() * 2);
+		for (String name : names) {
+			if (ignoredNames.contains(name)) {
+				continue;
+			}
+			key.add(name);
+			key.add(meta.getProperty(name));
+		}
+		return key;
+	}
+
+	@Nonnull
+	private static Set<ItemAttributesRQ> convert(@Nonnull final List<String> key) {
+		Set<ItemAttributesRQ> attributes = new HashSet<>();
+		for (int i = 0; i < key.size(); i += 2) {
+			String name = key.get(i);
+			String value = key.get(i + 1);
+			attributes.add(isBlank(value) ? new ItemAttributesRQ(name) : new ItemAttributesRQ(name, value));
+		}
+		return Collections.unmodifiableSet(attributes);
+	}
+
+	/**
+	 * Returns a shared set of attributes for the given meta.
+	 *
+	 * @param meta JBehave's meta object
+	 * @return an unmodifiable set of attributes, which should not be changed
+	 */
+	@Nonnull
+	public Set<ItemAttributesRQ> get(@Nonnull final Meta meta) {
+		if (meta.getPropertyNames().isEmpty()) {
+			return Collections.emptySet();
+		}
+		return Objects.requireNonNull(cache.computeIfAbsent(key(meta), MetaAttributesCache::convert));
+	}
+}
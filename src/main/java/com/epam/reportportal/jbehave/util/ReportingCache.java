@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.util;
+
+import com.epam.reportportal.service.item.TestCaseIdEntry;
+import com.epam.reportportal.utils.TestCaseIdUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * A cache of values which story reporters derive from the same JBehave events: root code references, code reference strings and test case
+ * IDs. It is shared by reporters which report the same run into several launches, see
+ * {@link com.epam.reportportal.jbehave.ReportPortalCompositeFormat}, so each value is computed once for all of them. Since root code
+ * references are shared, their interned child references are shared too.
+ * <p>
+ * The cache is bounded, when a map reaches the maximum size its oldest values are evicted, which only costs recalculation of the values.
+ */
+public class ReportingCache {
+	private static final int DEFAULT_MAX_SIZE = 8192;
+
+	private final int maxSize;
+	private final BoundedCache<String, CodeReference> roots;
+	private final BoundedCache<CodeReference, String> codeRefs;
+	private final BoundedCache<List<Object>, TestCaseIdEntry> testCaseIds;
+
+	public ReportingCache(int cacheSize) {
+		maxSize = cacheSize;
+		roots = new BoundedCache<>(cacheSize);
+		codeRefs = new BoundedCache<>(cacheSize);
+		testCaseIds = new BoundedCache<>(cacheSize);
+	}
+
+	public ReportingCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @return a maximum number of cached values of each type
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns a root code reference, the same instance is returned for the same value while it is cached.
+	 *
+	 * @param value a root code reference string, usually a story path
+	 * @return the code reference
+	 */
+	@Nonnull
+	public CodeReference getRoot(@Nonnull final String value) {
+		return Objects.requireNonNull(roots.computeIfAbsent(value, CodeReference::of));
+	}
+
+	/**
+	 * Returns a full code reference string.
+	 *
+	 * @param codeRef a code reference
+	 * @return the code reference string
+	 */
+	@Nonnull
+	public String getString(@Nonnull final CodeReference codeRef) {
+		return Objects.requireNonNull(codeRefs.computeIfAbsent(codeRef, CodeReference::toString));
+	}
+
+	/**
+	 * Returns a test case ID generated by {@link TestCaseIdUtils#getTestCaseId(String, List)}.
+	 *
+	 * @param codeRef a code reference
+	 * @param params  test parameter values
+	 * @return the test case ID entry
+	 */
+	@Nullable
+	public TestCaseIdEntry getTestCaseId(@Nullable final String codeRef, @Nullable final List<String> params) {
+		List<Object> key = Arrays.asList(codeRef, params == null ? null : new ArrayList<>(params));
+		return testCaseIds.computeIfAbsent(key, k -> TestCaseIdUtils.getTestCaseId(codeRef, params));
+	}
+}
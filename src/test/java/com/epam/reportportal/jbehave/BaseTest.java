@@ -38,6 +38,7 @@ import org.jbehave.core.embedder.Embedder;
 import org.jbehave.core.embedder.EmbedderControls;
 import org.jbehave.core.embedder.NullEmbedderMonitor;
 import org.jbehave.core.io.LoadFromClasspath;
+import org.jbehave.core.io.StoryLoader;
 import org.jbehave.core.io.UnderscoredCamelCaseResolver;
 import org.jbehave.core.parsers.RegexStoryParser;
 import org.jbehave.core.parsers.StoryParser;
@@ -84,6 +85,11 @@ public class BaseTest {
 
 	public static void run(@Nonnull final Class<?> clazz, @Nonnull final Format format, @Nonnull final List<String> stories,
 			@Nonnull final StoryParser parser, @Nullable final Object... steps) {
+		run(new LoadFromClasspath(clazz), format, stories, parser, steps);
+	}
+
+	public static void run(@Nonnull final StoryLoader loader, @Nonnull final Format format, @Nonnull final List<String> stories,
+			@Nonnull final StoryParser parser, @Nullable final Object... steps) {
 		Properties viewResources = new Properties();
 
 		Embedder embedder = new Embedder();
@@ -96,7 +102,7 @@ public class BaseTest {
 				.doVerboseFailures(false)
 				.doVerboseFiltering(false));
 
-		embedder.useConfiguration(new MostUsefulConfiguration().useStoryLoader(new LoadFromClasspath(clazz))
+		embedder.useConfiguration(new MostUsefulConfiguration().useStoryLoader(loader)
 				.useStoryPathResolver(new UnderscoredCamelCaseResolver())
 				.useStoryParser(parser)
 				.useStoryReporterBuilder(new StoryReporterBuilder().withDefaultFormats()
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.jbehave.integration.basic.EmptySteps;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+public class CompositeFormatTest extends BaseTest {
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final List<String> stepIds = Stream.generate(() -> CommonUtils.namedId("step_")).limit(2).collect(Collectors.toList());
+
+	private final ReportPortalClient stepClient = mock(ReportPortalClient.class);
+	private final ReportPortalClient scenarioClient = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat stepFormat = new ReportPortalStepFormat(ReportPortal.create(stepClient,
+			standardParameters(),
+			testExecutor()
+	));
+	private final ReportPortalScenarioFormat scenarioFormat = new ReportPortalScenarioFormat(ReportPortal.create(scenarioClient,
+			standardParameters(),
+			testExecutor()
+	));
+	private final ReportPortalCompositeFormat format = new ReportPortalCompositeFormat(stepFormat, scenarioFormat);
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(stepClient, null, storyId, scenarioId, stepIds);
+		mockBatchLogging(stepClient);
+		mockLaunch(scenarioClient, null, storyId, scenarioId, stepIds);
+		mockBatchLogging(scenarioClient);
+	}
+
+	private static List<StartTestItemRQ> startRequests(ReportPortalClient client, String storyId, String scenarioId) {
+		ArgumentCaptor<StartTestItemRQ> captor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+		verify(client).startTestItem(captor.capture());
+		verify(client).startTestItem(same(storyId), captor.capture());
+		verify(client, times(2)).startTestItem(same(scenarioId), captor.capture());
+		return captor.getAllValues();
+	}
+
+	@Test
+	public void verify_one_run_is_reported_into_two_launches_with_shared_code_references() {
+		run(format, "stories/DummyScenario.story", new EmptySteps());
+
+		List<StartTestItemRQ> stepItems = startRequests(stepClient, storyId, scenarioId);
+		List<StartTestItemRQ> scenarioItems = startRequests(scenarioClient, storyId, scenarioId);
+
+		assertThat(stepItems, hasSize(4));
+		assertThat(scenarioItems, hasSize(4));
+		for (int i = 0; i < stepItems.size(); i++) {
+			assertThat(stepItems.get(i).getCodeRef(), allOf(notNullValue(), sameInstance(scenarioItems.get(i).getCodeRef())));
+		}
+		assertThat(stepItems.get(2).isHasStats(), equalTo(Boolean.TRUE));
+		assertThat(scenarioItems.get(2).isHasStats(), equalTo(Boolean.FALSE));
+		assertThat(format.getFormats(), contains(stepFormat, scenarioFormat));
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.jbehave.integration.basic.EmptySteps;
+import com.epam.reportportal.jbehave.integration.basic.FailedSteps;
+import com.epam.reportportal.jbehave.integration.basic.GeneratedSteps;
+import com.epam.reportportal.jbehave.scale.SyntheticSuite;
+import com.epam.reportportal.jbehave.stub.StubReportPortalServer;
+import com.epam.reportportal.jbehave.stub.StubReportPortalServer.Endpoint;
+import com.epam.reportportal.listeners.ListenerParameters;
+import com.epam.reportportal.service.ReportPortal;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Runs stories through the whole stack: formatter, client, serialization and HTTP, against an in-process stub server.
+ */
+public class EndToEndThroughputTest extends BaseTest {
+
+	private StubReportPortalServer server;
+
+	@TempDir
+	public Path directory;
+
+	@BeforeEach
+	public void startServer() throws IOException {
+		server = new StubReportPortalServer();
+	}
+
+	@AfterEach
+	public void stopServer() {
+		server.close();
+	}
+
+	private ReportPortalStepFormat createFormat() {
+		ListenerParameters parameters = standardParameters();
+		parameters.setBaseUrl(server.getBaseUrl());
+		parameters.setApiKey("test_api_key");
+		return new ReportPortalStepFormat(ReportPortal.builder().withParameters(parameters).build());
+	}
+
+	@Test
+	public void verify_requests_and_payloads_are_recorded() {
+		ReportPortalStepFormat format = createFormat();
+		run(format, "stories/DummyScenario.story", new EmptySteps());
+		format.finishLaunch();
+
+		assertThat(server.getRequestCount(Endpoint.START_LAUNCH), equalTo(1L));
+		assertThat(server.getRequestCount(Endpoint.FINISH_LAUNCH), equalTo(1L));
+		// a story, a scenario and two steps
+		assertThat(server.getRequestCount(Endpoint.START_ITEM), equalTo(4L));
+		assertThat(server.getRequestCount(Endpoint.FINISH_ITEM), equalTo(4L));
+		assertThat(server.getPayloadBytes(Endpoint.START_ITEM), greaterThan(0L));
+		assertThat(server.getTotalPayloadBytes(), greaterThan(server.getPayloadBytes(Endpoint.START_ITEM)));
+	}
+
+	@Test
+	public void verify_generated_suite_is_reported_with_latency() {
+		SyntheticSuite suite = new SyntheticSuite().stories(3).scenarios(3).rows(3).steps(3).failureRatio(0.2);
+		List<String> paths = suite.generate(directory);
+		server.withLatency(2, TimeUnit.MILLISECONDS);
+		ReportPortalStepFormat format = createFormat();
+
+		run(SyntheticSuite.loader(directory), format, paths, new RegexStoryParser(), new GeneratedSteps());
+		format.finishLaunch();
+
+		assertThat(server.getRequestCount(Endpoint.START_ITEM), greaterThanOrEqualTo((long) suite.stepCount()));
+		assertThat(server.getRequestCount(Endpoint.FINISH_ITEM), equalTo(server.getRequestCount(Endpoint.START_ITEM)));
+		assertThat(server.getRequestCount(Endpoint.FINISH_LAUNCH), equalTo(1L));
+	}
+
+	@Test
+	public void verify_launch_finishes_despite_log_errors() {
+		server.withErrors(1, Endpoint.LOG);
+		ReportPortalStepFormat format = createFormat();
+
+		run(format, "stories/status/FailedScenario.story", new FailedSteps());
+		format.finishLaunch();
+
+		assertThat(server.getRequestCount(Endpoint.LOG), greaterThanOrEqualTo(1L));
+		assertThat(server.getErrorCount(Endpoint.LOG), equalTo(server.getRequestCount(Endpoint.LOG)));
+		assertThat(server.getRequestCount(Endpoint.FINISH_LAUNCH), equalTo(1L));
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.jbehave.integration.basic.EmptySteps;
+import com.epam.reportportal.jbehave.integration.basic.FailedSteps;
+import com.epam.reportportal.listeners.ItemType;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.FinishTestItemRQ;
+import com.epam.ta.reportportal.ws.model.OperationCompletionRS;
+import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
+import com.epam.ta.reportportal.ws.model.item.ItemCreatedRS;
+import com.epam.ta.reportportal.ws.model.launch.StartLaunchRS;
+import io.reactivex.Maybe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.epam.reportportal.util.test.CommonUtils.createMaybe;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class GivenStoryDeduplicationTest extends BaseTest {
+
+	private static final String REUSED_GIVEN_STORY = "stories/given/ReusedGiven.story";
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@BeforeEach
+	public void setupMock() {
+		String launchUuid = CommonUtils.namedId("launch_");
+		when(client.startLaunch(any())).thenReturn(createMaybe(new StartLaunchRS(launchUuid, 1L)));
+		when(client.finishLaunch(eq(launchUuid), any())).thenReturn(createMaybe(new OperationCompletionRS()));
+		when(client.startTestItem(any())).thenAnswer(i -> createdItem());
+		when(client.startTestItem(anyString(), any())).thenAnswer(i -> createdItem());
+		when(client.finishTestItem(anyString(), any())).thenReturn(createMaybe(new OperationCompletionRS()));
+		mockBatchLogging(client);
+		format.setGivenStoryDeduplication(true);
+	}
+
+	private static Maybe<ItemCreatedRS> createdItem() {
+		String uuid = CommonUtils.namedId("item_");
+		return createMaybe(new ItemCreatedRS(uuid, uuid));
+	}
+
+	private List<StartTestItemRQ> childItems(ItemType type) {
+		ArgumentCaptor<StartTestItemRQ> captor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+		verify(client, atLeastOnce()).startTestItem(anyString(), captor.capture());
+		return captor.getAllValues().stream().filter(rq -> type.name().equals(rq.getType())).collect(Collectors.toList());
+	}
+
+	@Test
+	public void verify_passed_given_story_is_reported_in_full_only_once() {
+		run(format,
+				Arrays.asList("stories/given/FirstParent.story", "stories/given/SecondParent.story"),
+				new EmptySteps()
+		);
+
+		assertThat(childItems(ItemType.STORY), hasSize(2));
+		assertThat(childItems(ItemType.SCENARIO), hasSize(3));
+		assertThat(childItems(ItemType.STEP), hasSize(3));
+
+		ArgumentCaptor<FinishTestItemRQ> finishCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		verify(client, atLeastOnce()).finishTestItem(anyString(), finishCaptor.capture());
+		List<FinishTestItemRQ> references = finishCaptor.getAllValues()
+				.stream()
+				.filter(rq -> rq.getDescription() != null && rq.getDescription().contains(REUSED_GIVEN_STORY))
+				.collect(Collectors.toList());
+		assertThat(references, hasSize(1));
+		assertThat(references.get(0).getStatus(), equalTo("PASSED"));
+	}
+
+	@Test
+	public void verify_failed_given_story_is_reported_in_full_every_time() {
+		run(format,
+				Arrays.asList("stories/given/FirstFailingParent.story", "stories/given/SecondFailingParent.story"),
+				new EmptySteps(),
+				new FailedSteps()
+		);
+
+		List<StartTestItemRQ> givenScenarios = childItems(ItemType.SCENARIO).stream()
+				.filter(rq -> rq.getName().equals("A failing given scenario"))
+				.collect(Collectors.toList());
+		assertThat(givenScenarios, hasSize(2));
+	}
+
+	@Test
+	public void verify_pending_given_story_is_reported_in_full_every_time() {
+		run(format,
+				Arrays.asList("stories/given/FirstPendingParent.story", "stories/given/SecondPendingParent.story"),
+				new EmptySteps()
+		);
+
+		List<StartTestItemRQ> givenScenarios = childItems(ItemType.SCENARIO).stream()
+				.filter(rq -> rq.getName().equals("A pending given scenario"))
+				.collect(Collectors.toList());
+		assertThat(givenScenarios, hasSize(2));
+	}
+}
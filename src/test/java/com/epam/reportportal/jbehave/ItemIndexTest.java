@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.jbehave.integration.basic.EmptySteps;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.service.tree.TestItemTree;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+public class ItemIndexTest extends BaseTest {
+
+	private static final String STORY_PATH = "stories/TwoScenarios.story";
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final List<String> scenarioIds = Stream.generate(() -> CommonUtils.namedId("scenario_")).limit(2).collect(Collectors.toList());
+	private final List<String> stepIds = Stream.generate(() -> CommonUtils.namedId("test_")).limit(2).collect(Collectors.toList());
+
+	private final List<Pair<String, List<String>>> tests = Arrays.asList(
+			Pair.of(scenarioIds.get(0), Collections.singletonList(stepIds.get(0))),
+			Pair.of(scenarioIds.get(1), Collections.singletonList(stepIds.get(1)))
+	);
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@BeforeEach
+	public void setup() {
+		mockLaunch(client, null, storyId, tests);
+		mockBatchLogging(client);
+	}
+
+	@Test
+	public void verify_items_are_found_by_code_ref_and_test_case_id() {
+		format.setItemIndexing(true);
+		run(format, STORY_PATH, new EmptySteps());
+
+		ArgumentCaptor<StartTestItemRQ> scenarioCaptor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+		verify(client, times(2)).startTestItem(same(storyId), scenarioCaptor.capture());
+		ArgumentCaptor<StartTestItemRQ> stepCaptor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+		verify(client).startTestItem(same(scenarioIds.get(1)), stepCaptor.capture());
+
+		StartTestItemRQ scenario = scenarioCaptor.getAllValues().get(1);
+		String scenarioItemId = format.findItemByCodeRef(scenario.getCodeRef())
+				.map(l -> l.getItemId().blockingGet())
+				.orElseThrow(AssertionError::new);
+		assertThat(scenarioItemId, equalTo(scenarioIds.get(1)));
+
+		StartTestItemRQ step = stepCaptor.getValue();
+		TestItemTree.TestItemLeaf stepLeaf = format.findItemByTestCaseId(step.getTestCaseId()).orElseThrow(AssertionError::new);
+		assertThat(stepLeaf.getItemId().blockingGet(), equalTo(stepIds.get(1)));
+	}
+
+	@Test
+	public void verify_items_are_not_indexed_by_default() {
+		run(format, STORY_PATH, new EmptySteps());
+
+		ArgumentCaptor<StartTestItemRQ> scenarioCaptor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+		verify(client, times(2)).startTestItem(same(storyId), scenarioCaptor.capture());
+
+		assertThat(format.findItemByCodeRef(scenarioCaptor.getAllValues().get(1).getCodeRef()).isPresent(), equalTo(false));
+	}
+}
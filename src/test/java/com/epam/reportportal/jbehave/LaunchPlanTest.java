@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.jbehave.integration.basic.ParameterizedSteps;
+import com.epam.reportportal.jbehave.integration.basic.StockSteps;
+import com.epam.reportportal.jbehave.util.ReportingCache;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.service.item.TestCaseIdEntry;
+import com.epam.reportportal.util.test.CommonUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.model.Story;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+public class LaunchPlanTest extends BaseTest {
+
+	private static final String STORY_PATH = "stories/Examples.story";
+	private static final String OTHER_STORY_PATH = "stories/TwoScenarios.story";
+	private static final int STEPS_QUANTITY = 4;
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final List<String> exampleIds = Stream.generate(() -> CommonUtils.namedId("example_")).limit(2).collect(Collectors.toList());
+	private final List<Pair<String, String>> stepIds = exampleIds.stream()
+			.flatMap(e -> Stream.generate(() -> Pair.of(e, CommonUtils.namedId("step_"))).limit(STEPS_QUANTITY))
+			.collect(Collectors.toList());
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(client, null, storyId, scenarioId, exampleIds);
+		mockNestedSteps(client, stepIds);
+		mockBatchLogging(client);
+	}
+
+	@Test
+	public void verify_planned_story_items_are_counted() {
+		MostUsefulConfiguration configuration = new MostUsefulConfiguration();
+		Story story = configuration.storyParser().parseStory(configuration.storyLoader().loadStoryAsText(STORY_PATH), STORY_PATH);
+
+		ReportPortalStoryReporter reporter = format.createPlanner();
+		assertThat(reporter.plan(story), equalTo(0));
+		reporter.setReportingCache(new ReportingCache());
+		// a story, a scenario, two example rows with four steps each
+		assertThat(reporter.plan(story), equalTo(12));
+	}
+
+	@Test
+	public void verify_reporter_uses_planned_test_case_ids() {
+		RecordingCache cache = new RecordingCache();
+		format.setReportingCache(cache);
+		assertThat(format.plan(new MostUsefulConfiguration(), Collections.singletonList(STORY_PATH)), sameInstance(cache));
+
+		cache.running = true;
+		run(format, STORY_PATH, new StockSteps(), new ParameterizedSteps());
+
+		verify(client, times(STEPS_QUANTITY)).startTestItem(same(exampleIds.get(0)), any());
+		assertThat(cache.used, hasSize(STEPS_QUANTITY * exampleIds.size()));
+		assertThat(cache.planned.containsAll(cache.used), equalTo(true));
+	}
+
+	@Test
+	public void verify_only_stories_which_fit_into_the_cache_are_planned() {
+		// the first story has 12 items, the second one does not fit
+		RecordingCache cache = new RecordingCache(12);
+		format.setReportingCache(cache);
+		format.plan(new MostUsefulConfiguration(), Arrays.asList(STORY_PATH, OTHER_STORY_PATH));
+
+		assertThat(cache.planned, hasSize(STEPS_QUANTITY * exampleIds.size()));
+		assertThat(cache.planned.stream().map(k -> String.valueOf(k.get(0))).collect(Collectors.toList()), everyItem(startsWith(STORY_PATH)));
+	}
+
+	private static class RecordingCache extends ReportingCache {
+		private final Set<List<Object>> planned = ConcurrentHashMap.newKeySet();
+		private final Set<List<Object>> used = ConcurrentHashMap.newKeySet();
+		private volatile boolean running;
+
+		private RecordingCache() {
+			super();
+		}
+
+		private RecordingCache(int cacheSize) {
+			super(cacheSize);
+		}
+
+		@Override
+		public TestCaseIdEntry getTestCaseId(@Nullable final String codeRef, @Nullable final List<String> params) {
+			(running ? used : planned).add(Arrays.asList(codeRef, params));
+			return super.getTestCaseId(codeRef, params);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.jbehave.integration.basic.ParameterizedSteps;
+import com.epam.reportportal.jbehave.integration.basic.StockSteps;
+import com.epam.reportportal.jbehave.util.CodeReference;
+import com.epam.reportportal.listeners.ItemStatus;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.service.tree.TestItemTree;
+import com.epam.reportportal.util.test.CommonUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jbehave.core.reporters.FilePrintStreamFactory;
+import org.jbehave.core.reporters.StoryReporterBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class LeafCompactionTest extends BaseTest {
+
+	private static final int STEPS_QUANTITY = 4;
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final List<String> exampleIds = Stream.generate(() -> CommonUtils.namedId("example_")).limit(2).collect(Collectors.toList());
+	private final List<Pair<String, String>> stepIds = exampleIds.stream()
+			.flatMap(e -> Stream.generate(() -> Pair.of(e, CommonUtils.namedId("step_"))).limit(STEPS_QUANTITY))
+			.collect(Collectors.toList());
+
+	private final Set<TestItemTree.TestItemLeaf> compacted = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	)) {
+		@Override
+		public ReportPortalStoryReporter createReportPortalReporter(FilePrintStreamFactory factory,
+				StoryReporterBuilder storyReporterBuilder) {
+			return new ReportPortalStepStoryReporter(launch, itemTree) {
+				@Nonnull
+				@Override
+				protected TestItemTree.TestItemLeaf compactLeaf(@Nonnull TestItemTree.TestItemLeaf leaf,
+						@Nullable TestItemTree.TestItemLeaf parent) {
+					TestItemTree.TestItemLeaf result = super.compactLeaf(leaf, parent);
+					if (parent == null) {
+						compacted.add(result);
+					}
+					return result;
+				}
+			};
+		}
+	};
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(client, null, storyId, scenarioId, exampleIds);
+		mockNestedSteps(client, stepIds);
+		mockBatchLogging(client);
+	}
+
+	private TestItemTree.TestItemLeaf awaitCompactedStory() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			Optional<TestItemTree.TestItemLeaf> story = format.getItemTree()
+					.getTestItems()
+					.values()
+					.stream()
+					.filter(compacted::contains)
+					.findAny();
+			if (story.isPresent()) {
+				return story.get();
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Story leaf was not compacted");
+	}
+
+	private static TestItemTree.TestItemLeaf single(Map<TestItemTree.ItemTreeKey, TestItemTree.TestItemLeaf> items) {
+		assertThat(items.values(), hasSize(1));
+		return items.values().iterator().next();
+	}
+
+	@Test
+	public void verify_finished_leaves_are_replaced_with_compact_copies() throws InterruptedException {
+		format.setLeafCompaction(true);
+		run(format, "stories/Examples.story", new StockSteps(), new ParameterizedSteps());
+
+		TestItemTree.TestItemLeaf story = awaitCompactedStory();
+		assertThat(story.getItemId().blockingGet(), equalTo(storyId));
+		assertThat(story.getStatus(), equalTo(ItemStatus.PASSED));
+		assertThat(story.getFinishResponse(), notNullValue());
+
+		TestItemTree.TestItemLeaf scenario = single(story.getChildItems());
+		assertThat(scenario.getItemId().blockingGet(), equalTo(scenarioId));
+		assertThat(scenario.getParentId().blockingGet(), equalTo(storyId));
+		assertThat(scenario.getAttribute(ReportPortalStoryReporter.COMPACT), equalTo(Boolean.TRUE));
+		assertThat(scenario.getAttribute(ReportPortalStoryReporter.PARENT), sameInstance(story));
+		assertThat(scenario.getAttribute(ReportPortalStoryReporter.CODE_REF_NODE), instanceOf(CodeReference.class));
+		assertThat(ReportPortalStoryReporter.getLeafCodeRef(scenario), startsWith("stories/Examples.story/"));
+		assertThat(scenario.getAttribute(ReportPortalStoryReporter.START_REQUEST), nullValue());
+		assertThat(scenario.getAttribute(ReportPortalStoryReporter.FINISH_REQUEST), nullValue());
+
+		Collection<TestItemTree.TestItemLeaf> examples = scenario.getChildItems().values();
+		assertThat(examples.stream().map(e -> e.getItemId().blockingGet()).collect(Collectors.toList()),
+				containsInAnyOrder(exampleIds.toArray())
+		);
+		examples.forEach(e -> {
+			assertThat(e.getAttribute(ReportPortalStoryReporter.PARENT), sameInstance(scenario));
+			assertThat(e.getChildItems().values(), hasSize(STEPS_QUANTITY));
+			e.getChildItems().values().forEach(s -> {
+				assertThat(s.getAttribute(ReportPortalStoryReporter.PARENT), sameInstance(e));
+				assertThat(s.getParentId().blockingGet(), equalTo(e.getItemId().blockingGet()));
+				assertThat(s.getStatus(), equalTo(ItemStatus.PASSED));
+			});
+		});
+	}
+
+	@Test
+	public void verify_leaves_are_not_compacted_by_default() {
+		run(format, "stories/Examples.story", new StockSteps(), new ParameterizedSteps());
+
+		TestItemTree.TestItemLeaf story = single(format.getItemTree().getTestItems());
+		TestItemTree.TestItemLeaf scenario = single(story.getChildItems());
+		assertThat(compacted, empty());
+		assertThat(scenario.getAttribute(ReportPortalStoryReporter.COMPACT), nullValue());
+		assertThat(scenario.getAttribute(ReportPortalStoryReporter.START_REQUEST), notNullValue());
+		assertThat(scenario.getAttribute(ReportPortalStoryReporter.FINISH_REQUEST), notNullValue());
+	}
+}
@@ -19,20 +19,25 @@ package com.epam.reportportal.jbehave;
 import com.epam.reportportal.jbehave.integration.basic.EmptySteps;
 import com.epam.reportportal.service.ReportPortal;
 import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.service.tree.TestItemTree;
 import com.epam.reportportal.util.test.CommonUtils;
 import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
 import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
 import org.apache.commons.lang3.tuple.Pair;
+import org.jbehave.core.model.Meta;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
@@ -90,4 +95,21 @@ public class MetaTest extends BaseTest {
 		scenarioAttributes.forEach(a -> assertThat(SCENARIO_ATTRIBUTES, hasItem(Pair.of(a.getKey(), a.getValue()))));
 	}
 
+	@Test
+	public void verify_equal_metas_share_unmodifiable_attributes() {
+		Properties properties = new Properties();
+		properties.setProperty("layer", "api");
+		properties.setProperty("team", "payments");
+		ReportPortalStoryReporter reporter = new ReportPortalStepStoryReporter(() -> null, new TestItemTree());
+
+		Set<ItemAttributesRQ> first = reporter.getAttributes(new Meta(properties));
+		Set<ItemAttributesRQ> second = reporter.getAttributes(new Meta((Properties) properties.clone()));
+
+		assertThat(second, sameInstance(first));
+		assertThat(first.stream().map(a -> Pair.of(a.getKey(), a.getValue())).collect(Collectors.toSet()),
+				containsInAnyOrder(Pair.of("layer", "api"), Pair.of("team", "payments"))
+		);
+		assertThrows(UnsupportedOperationException.class, () -> first.add(new ItemAttributesRQ("key", "value")));
+	}
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave;
+
+import com.epam.reportportal.jbehave.integration.basic.FailedSteps;
+import com.epam.reportportal.jbehave.integration.basic.ParameterizedSteps;
+import com.epam.reportportal.jbehave.integration.basic.StockSteps;
+import com.epam.reportportal.listeners.ItemStatus;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.service.tree.TestItemTree;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.FinishTestItemRQ;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class StreamingExamplesTest extends BaseTest {
+
+	private static final int STEPS_QUANTITY = 4;
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final List<String> exampleIds = Stream.generate(() -> CommonUtils.namedId("example_")).limit(2).collect(Collectors.toList());
+	private final List<Pair<String, String>> stepIds = exampleIds.stream()
+			.flatMap(e -> Stream.generate(() -> Pair.of(e, CommonUtils.namedId("step_"))).limit(STEPS_QUANTITY))
+			.collect(Collectors.toList());
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(client, null, storyId, scenarioId, exampleIds);
+		mockNestedSteps(client, stepIds);
+		mockBatchLogging(client);
+		format.setStreamingExamples(true);
+	}
+
+	@Test
+	public void verify_finished_examples_are_removed_from_the_tree() {
+		run(format, "stories/Examples.story", new StockSteps(), new ParameterizedSteps());
+
+		verify(client, times(2)).startTestItem(same(scenarioId), any());
+		stepIds.forEach(s -> verify(client).finishTestItem(same(s.getValue()), any()));
+		ArgumentCaptor<FinishTestItemRQ> finishCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		exampleIds.forEach(e -> verify(client).finishTestItem(same(e), finishCaptor.capture()));
+		verify(client).finishTestItem(same(scenarioId), finishCaptor.capture());
+		finishCaptor.getAllValues().forEach(rq -> assertThat(rq.getStatus(), equalTo(ItemStatus.PASSED.name())));
+
+		List<TestItemTree.TestItemLeaf> scenarios = format.getItemTree()
+				.getTestItems()
+				.values()
+				.stream()
+				.flatMap(s -> s.getChildItems().values().stream())
+				.collect(Collectors.toList());
+		assertThat(scenarios, hasSize(1));
+		assertThat(scenarios.get(0).getChildItems().values(), empty());
+		assertThat(scenarios.get(0).getStatus(), equalTo(ItemStatus.PASSED));
+	}
+
+	@Test
+	public void verify_failed_example_fails_the_scenario() {
+		run(format, "stories/status/FailedExampleScenario.story", new FailedSteps());
+
+		ArgumentCaptor<FinishTestItemRQ> exampleCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		exampleIds.forEach(e -> verify(client).finishTestItem(same(e), exampleCaptor.capture()));
+		assertThat(exampleCaptor.getAllValues().stream().map(FinishTestItemRQ::getStatus).collect(Collectors.toList()),
+				contains(ItemStatus.FAILED.name(), ItemStatus.PASSED.name())
+		);
+		ArgumentCaptor<FinishTestItemRQ> scenarioCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		verify(client).finishTestItem(same(scenarioId), scenarioCaptor.capture());
+		assertThat(scenarioCaptor.getValue().getStatus(), equalTo(ItemStatus.FAILED.name()));
+
+		TestItemTree.TestItemLeaf scenario = format.getItemTree()
+				.getTestItems()
+				.values()
+				.stream()
+				.flatMap(s -> s.getChildItems().values().stream())
+				.findAny()
+				.orElseThrow(() -> new AssertionError("No scenario leaf"));
+		assertThat(scenario.getChildItems().values(), empty());
+		assertThat(scenario.getStatus(), equalTo(ItemStatus.FAILED));
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.allocation;
+
+import com.epam.reportportal.jbehave.ReportPortalScenarioStoryReporter;
+import com.epam.reportportal.jbehave.ReportPortalStepStoryReporter;
+import com.epam.reportportal.jbehave.ReportPortalStoryReporter;
+import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.tree.TestItemTree;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures bytes allocated by the reporting thread on the step hot path. Budgets are checked in below: lower them after an optimization,
+ * raise them only on purpose.
+ */
+public class StepAllocationTest {
+	/**
+	 * Bytes allocated per 'beforeStep' + 'successful' pair
+	 */
+	private static final long STEP_BUDGET = 16 * 1024;
+	/**
+	 * Bytes allocated per an example row with {@link #ROW_STEPS} steps
+	 */
+	private static final long EXAMPLE_ROW_BUDGET = 96 * 1024;
+
+	private static final int ROW_STEPS = 4;
+	private static final int WARM_UP = 2_000;
+	private static final int ITERATIONS = 5_000;
+	private static final String STEP = "Given a step with parameter <value>";
+	private static final Supplier<Launch> LAUNCH = () -> Launch.NOOP_LAUNCH;
+
+	private static final String STORY = "Scenario: Allocation scenario\n" + STEP + "\n\nExamples:\n|value|\n|1|\n";
+
+	private static com.sun.management.ThreadMXBean threadBean;
+
+	@BeforeAll
+	public static void setupBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	private static long allocatedBytes() {
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static Story story() {
+		return new RegexStoryParser().parseStory(STORY, "stories/allocation.story");
+	}
+
+	private static long bytesPerStep(ReportPortalStoryReporter reporter) {
+		Story story = story();
+		Scenario scenario = story.getScenarios().get(0);
+		reporter.beforeStory(story, false);
+		reporter.beforeScenario(scenario);
+		for (int i = 0; i < WARM_UP; i++) {
+			reporter.beforeStep(STEP);
+			reporter.successful(STEP);
+		}
+		long before = allocatedBytes();
+		for (int i = 0; i < ITERATIONS; i++) {
+			reporter.beforeStep(STEP);
+			reporter.successful(STEP);
+		}
+		long result = (allocatedBytes() - before) / ITERATIONS;
+		reporter.afterScenario();
+		reporter.afterStory(false);
+		return result;
+	}
+
+	@Test
+	public void verify_step_format_step_allocation_budget() {
+		long bytes = bytesPerStep(new ReportPortalStepStoryReporter(LAUNCH, new TestItemTree()));
+		assertThat("Bytes allocated per step", bytes, lessThanOrEqualTo(STEP_BUDGET));
+	}
+
+	@Test
+	public void verify_scenario_format_step_allocation_budget() {
+		long bytes = bytesPerStep(new ReportPortalScenarioStoryReporter(LAUNCH, new TestItemTree()));
+		assertThat("Bytes allocated per step", bytes, lessThanOrEqualTo(STEP_BUDGET));
+	}
+
+	@Test
+	public void verify_example_row_allocation_budget() {
+		List<Map<String, String>> rows = new ArrayList<>(WARM_UP + ITERATIONS);
+		for (int i = 0; i < WARM_UP + ITERATIONS; i++) {
+			rows.add(Collections.singletonMap("value", String.valueOf(i)));
+		}
+		Story story = story();
+		Scenario scenario = story.getScenarios().get(0);
+		ReportPortalStoryReporter reporter = new ReportPortalStepStoryReporter(LAUNCH, new TestItemTree());
+		reporter.beforeStory(story, false);
+		reporter.beforeScenario(scenario);
+		reporter.beforeExamples(scenario.getSteps(), scenario.getExamplesTable());
+		long before = 0;
+		for (int i = 0; i < rows.size(); i++) {
+			if (i == WARM_UP) {
+				before = allocatedBytes();
+			}
+			reporter.example(rows.get(i), i);
+			for (int s = 0; s < ROW_STEPS; s++) {
+				reporter.beforeStep(STEP);
+				reporter.successful(STEP);
+			}
+		}
+		long bytes = (allocatedBytes() - before) / ITERATIONS;
+		reporter.afterExamples();
+		reporter.afterScenario();
+		reporter.afterStory(false);
+		assertThat("Bytes allocated per example row", bytes, lessThanOrEqualTo(EXAMPLE_ROW_BUDGET));
+	}
+}
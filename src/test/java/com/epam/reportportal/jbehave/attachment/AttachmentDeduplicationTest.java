@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.attachment;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.integration.basic.AttachmentSteps;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+import okhttp3.MultipartBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class AttachmentDeduplicationTest extends BaseTest {
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final List<String> stepIds = Stream.generate(() -> CommonUtils.namedId("step_")).limit(2).collect(Collectors.toList());
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(client, null, storyId, scenarioId, stepIds);
+		mockBatchLogging(client);
+	}
+
+	private List<SaveLogRQ> attachmentLogs(String itemId) {
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<MultipartBody.Part>> logCaptor = ArgumentCaptor.forClass(List.class);
+		verify(client, atLeast(1)).log(logCaptor.capture());
+		return filterLogs(logCaptor,
+				l -> itemId.equals(l.getItemUuid()) && l.getMessage() != null && l.getMessage().contains("attachment")
+		);
+	}
+
+	@Test
+	public void verify_identical_attachment_is_uploaded_once_per_launch() {
+		format.setAttachmentDeduplication(true);
+
+		run(format, "stories/attachment/DuplicateAttachments.story", new AttachmentSteps());
+
+		List<SaveLogRQ> firstLogs = attachmentLogs(stepIds.get(0));
+		assertThat(firstLogs, hasSize(1));
+		assertThat(firstLogs.get(0).getFile(), notNullValue());
+		assertThat(firstLogs.get(0).getFile().getName(), equalTo(AttachmentSteps.FILE_NAME));
+
+		List<SaveLogRQ> secondLogs = attachmentLogs(stepIds.get(1));
+		assertThat(secondLogs, hasSize(1));
+		assertThat(secondLogs.get(0).getFile(), nullValue());
+		assertThat(secondLogs.get(0).getMessage(), containsString("is identical to '" + AttachmentSteps.FILE_NAME + "'"));
+
+		AttachmentCache cache = format.getAttachmentCache().orElseThrow(IllegalStateException::new);
+		assertThat(cache.getUploadedCount(), equalTo(1L));
+		assertThat(cache.getDeduplicatedCount(), equalTo(1L));
+		assertThat(cache.getSavedBytes(), equalTo((long) AttachmentSteps.CONTENT.length));
+	}
+
+	@Test
+	public void verify_attachments_are_uploaded_every_time_without_deduplication() {
+		run(format, "stories/attachment/DuplicateAttachments.story", new AttachmentSteps());
+
+		assertThat(attachmentLogs(stepIds.get(0)).get(0).getFile(), notNullValue());
+		assertThat(attachmentLogs(stepIds.get(1)).get(0).getFile(), notNullValue());
+		assertThat(format.getAttachmentCache().isPresent(), equalTo(false));
+	}
+}
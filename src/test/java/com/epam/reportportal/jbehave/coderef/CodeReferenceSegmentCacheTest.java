@@ -0,0 +1,60 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.coderef;
+
+import com.epam.reportportal.jbehave.util.CodeReferenceSegmentCache;
+import com.epam.reportportal.listeners.ItemType;
+import com.epam.reportportal.service.tree.TestItemTree;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CodeReferenceSegmentCacheTest {
+
+	private static final String STEP = "Given I have a step with table parameter:";
+	private static final String TABLE_STEP = STEP + "\r\n|key|value|\n|1|one|";
+
+	private final CodeReferenceSegmentCache cache = new CodeReferenceSegmentCache();
+
+	@Test
+	public void verify_names_without_line_breaks_are_not_copied() {
+		assertThat(CodeReferenceSegmentCache.sanitize(STEP), sameInstance(STEP));
+		assertThat(CodeReferenceSegmentCache.sanitize(TABLE_STEP), equalTo(STEP + "|key|value||1|one|"));
+	}
+
+	@Test
+	public void verify_segments_and_keys_are_cached() {
+		CodeReferenceSegmentCache.Segment segment = cache.get(ItemType.STEP, TABLE_STEP);
+
+		assertThat(segment.getValue(), equalTo("[STEP:" + STEP + "|key|value||1|one|]"));
+		assertThat(segment.getKey(), equalTo(TestItemTree.ItemTreeKey.of(TABLE_STEP)));
+		assertThat(cache.get(ItemType.STEP, TABLE_STEP), sameInstance(segment));
+		assertThat(cache.get(ItemType.SCENARIO, TABLE_STEP).getValue(), startsWith("[SCENARIO:"));
+	}
+
+	@Test
+	public void verify_only_the_oldest_segments_are_evicted_when_the_cache_is_full() {
+		CodeReferenceSegmentCache smallCache = new CodeReferenceSegmentCache(2);
+		CodeReferenceSegmentCache.Segment first = smallCache.get(ItemType.STEP, "first");
+		CodeReferenceSegmentCache.Segment second = smallCache.get(ItemType.STEP, "second");
+		smallCache.get(ItemType.STEP, "third");
+
+		assertThat(smallCache.get(ItemType.STEP, "second"), sameInstance(second));
+		assertThat(smallCache.get(ItemType.STEP, "first"), not(sameInstance(first)));
+	}
+}
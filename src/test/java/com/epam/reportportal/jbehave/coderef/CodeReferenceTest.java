@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.coderef;
+
+import com.epam.reportportal.jbehave.util.CodeReference;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CodeReferenceTest {
+
+	private static final String STORY = "stories/Examples.story";
+	private static final String SCENARIO = "[SCENARIO:Stock trade alert]";
+	private static final String EXAMPLE = "[EXAMPLE:[symbol:STK1$]]";
+	private static final String STEP = "[STEP:Given a stock of symbol <symbol>]";
+
+	@Test
+	public void verify_code_reference_is_materialized_with_delimiters() {
+		CodeReference step = CodeReference.of(STORY).child(SCENARIO).child(EXAMPLE).child(STEP);
+
+		String expected = STORY + "/" + SCENARIO + "/" + EXAMPLE + "/" + STEP;
+		assertThat(step.toString(), equalTo(expected));
+		assertThat(step.length(), equalTo(expected.length()));
+		assertThat(CodeReference.of(STORY).toString(), equalTo(STORY));
+	}
+
+	@Test
+	public void verify_child_code_references_are_interned() {
+		CodeReference scenario = CodeReference.of(STORY).child(SCENARIO);
+		CodeReference example = scenario.child(EXAMPLE);
+
+		assertThat(scenario.child(EXAMPLE), sameInstance(example));
+		assertThat(example.child(STEP), sameInstance(example.child(STEP)));
+		assertThat(example.child(STEP).getParent(), sameInstance(example));
+		assertThat(scenario.child("[EXAMPLE:[symbol:STK2$]]"), not(sameInstance(example)));
+	}
+
+	@Test
+	public void verify_unused_child_code_references_are_released() throws InterruptedException {
+		CodeReference scenario = CodeReference.of(STORY).child(SCENARIO);
+		WeakReference<CodeReference> example = new WeakReference<>(scenario.child(EXAMPLE));
+
+		for (int i = 0; i < 50 && example.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertThat(example.get(), nullValue());
+		assertThat(scenario.child(EXAMPLE).toString(), equalTo(STORY + "/" + SCENARIO + "/" + EXAMPLE));
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.failure;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.ReportPortalStepStoryReporter;
+import com.epam.reportportal.jbehave.ReportPortalStoryReporter;
+import com.epam.reportportal.listeners.ItemStatus;
+import com.epam.reportportal.jbehave.integration.basic.FailedSteps;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.FinishTestItemRQ;
+import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
+import com.epam.ta.reportportal.ws.model.issue.Issue;
+import io.reactivex.Maybe;
+import org.jbehave.core.reporters.FilePrintStreamFactory;
+import org.jbehave.core.reporters.StoryReporterBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+public class FailureClusteringTest extends BaseTest {
+
+	private static final String FAILED_SCENARIO_PATH = "stories/status/FailedScenario.story";
+
+	@TempDir
+	public Path directory;
+
+	private static Throwable failure(String message, String method) {
+		IllegalStateException failure = new IllegalStateException(message);
+		failure.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.example.Service", method, "Service.java", 10),
+				new StackTraceElement("org.jbehave.core.steps.StepCreator", "perform", "StepCreator.java", 20) });
+		return new RuntimeException("Wrapper", failure);
+	}
+
+	@Test
+	public void verify_failures_with_different_variable_parts_get_the_same_signature() {
+		FailureClusterer clusterer = new FailureClusterer(null);
+
+		String first = clusterer.add(failure("Order 12345 not found for user 'alice'", "find"), "first");
+		String second = clusterer.add(failure("Order 67 not found for user 'bob'", "find"), "second");
+		String third = clusterer.add(failure("Order 67 not found for user 'bob'", "save"), "third");
+
+		assertThat(second, equalTo(first));
+		assertThat(third, not(equalTo(first)));
+		List<FailureClusterer.Cluster> clusters = clusterer.getClusters();
+		assertThat(clusters, hasSize(2));
+		assertThat(clusters.get(0).getSignature(), equalTo(first));
+		assertThat(clusters.get(0).getCount(), equalTo(2L));
+		assertThat(clusters.get(0).getMessage(), equalTo("Order <n> not found for user <str>"));
+		assertThat(clusters.get(0).getFrames(), contains("com.example.Service.find"));
+		assertThat(clusters.get(0).getItems(), contains("first", "second"));
+	}
+
+	@Test
+	public void verify_signature_frames_follow_excluded_packages() {
+		FailureClusterer clusterer = new FailureClusterer(null);
+
+		String first = clusterer.add(failure("Order 12345 not found", "find"), "first", Collections.singletonList("com.example."));
+		String second = clusterer.add(failure("Order 12345 not found", "save"), "second", Collections.singletonList("com.example."));
+
+		assertThat(second, equalTo(first));
+		assertThat(clusterer.getClusters().get(0).getFrames(), contains("org.jbehave.core.steps.StepCreator.perform"));
+	}
+
+	@Test
+	public void verify_failed_step_gets_signature_attribute_and_summary_is_written() throws IOException {
+		ReportPortalClient client = mock(ReportPortalClient.class);
+		String stepId = CommonUtils.namedId("step_");
+		mockLaunch(client, null, CommonUtils.namedId("story_"), CommonUtils.namedId("scenario_"), stepId);
+		mockBatchLogging(client);
+		ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client, standardParameters(), testExecutor()));
+		Path summary = directory.resolve("failures.json");
+		format.setFailureClustering(summary);
+
+		run(format, FAILED_SCENARIO_PATH, new FailedSteps());
+
+		ArgumentCaptor<FinishTestItemRQ> finishCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		verify(client).finishTestItem(same(stepId), finishCaptor.capture());
+		FailureClusterer clusterer = format.getFailureClusterer().orElseThrow(IllegalStateException::new);
+		List<FailureClusterer.Cluster> clusters = clusterer.getClusters();
+		assertThat(clusters, hasSize(1));
+		String signature = clusters.get(0).getSignature();
+		ItemAttributesRQ attribute = finishCaptor.getValue().getAttributes().iterator().next();
+		assertThat(attribute.getKey(), equalTo("failure.signature"));
+		assertThat(attribute.getValue(), equalTo(signature));
+
+		clusterer.writeSummary();
+		String text = new String(Files.readAllBytes(summary), StandardCharsets.UTF_8);
+		assertThat(text, allOf(containsString(signature), containsString(FailedSteps.ERROR_MESSAGE)));
+	}
+
+	@Test
+	public void verify_failed_step_with_signature_is_finished_through_finish_item() {
+		ReportPortalClient client = mock(ReportPortalClient.class);
+		String stepId = CommonUtils.namedId("step_");
+		mockLaunch(client, null, CommonUtils.namedId("story_"), CommonUtils.namedId("scenario_"), stepId);
+		mockBatchLogging(client);
+		List<ItemStatus> finished = new CopyOnWriteArrayList<>();
+		List<Set<ItemAttributesRQ>> finishedAttributes = new CopyOnWriteArrayList<>();
+		ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client, standardParameters(), testExecutor())) {
+			@Override
+			public ReportPortalStoryReporter createReportPortalReporter(FilePrintStreamFactory factory,
+					StoryReporterBuilder storyReporterBuilder) {
+				return new ReportPortalStepStoryReporter(launch, itemTree) {
+					@Override
+					protected void finishItem(@Nonnull Maybe<String> id, @Nonnull ItemStatus status, @Nullable Issue issue,
+							@Nullable Set<ItemAttributesRQ> attributes) {
+						finished.add(status);
+						finishedAttributes.add(attributes);
+						super.finishItem(id, status, issue, attributes);
+					}
+				};
+			}
+		};
+		format.setFailureClustering(directory.resolve("failures.json"));
+
+		run(format, FAILED_SCENARIO_PATH, new FailedSteps());
+
+		assertThat(finished, contains(ItemStatus.FAILED));
+		assertThat(finishedAttributes.get(0).iterator().next().getKey(), equalTo("failure.signature"));
+		ArgumentCaptor<FinishTestItemRQ> finishCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		verify(client).finishTestItem(same(stepId), finishCaptor.capture());
+		assertThat(finishCaptor.getValue().getAttributes(), hasSize(1));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.granularity;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.integration.basic.EmptySteps;
+import com.epam.reportportal.listeners.ItemStatus;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.FinishTestItemRQ;
+import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
+import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+import okhttp3.MultipartBody;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+public class GranularityMetaTest extends BaseTest {
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@SuppressWarnings("unchecked")
+	private List<SaveLogRQ> logs(String itemId, String text) {
+		ArgumentCaptor<List<MultipartBody.Part>> logCaptor = ArgumentCaptor.forClass(List.class);
+		verify(client, atLeast(1)).log(logCaptor.capture());
+		return filterLogs(logCaptor, l -> itemId.equals(l.getItemUuid()) && l.getMessage() != null && l.getMessage().contains(text));
+	}
+
+	@Test
+	public void verify_story_granularity_reports_only_story_item() {
+		mockLaunch(client, null, storyId, CommonUtils.namedId("scenario_"), Collections.emptyList());
+		mockBatchLogging(client);
+
+		run(format, "stories/granularity/StoryGranularity.story", new EmptySteps());
+
+		ArgumentCaptor<StartTestItemRQ> captor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+		verify(client).startTestItem(captor.capture());
+		verify(client, never()).startTestItem(same(storyId), any());
+
+		List<String> attributes = captor.getValue().getAttributes().stream().map(ItemAttributesRQ::getKey).collect(Collectors.toList());
+		assertThat(attributes, contains("component"));
+
+		ArgumentCaptor<FinishTestItemRQ> finishCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		verify(client).finishTestItem(same(storyId), finishCaptor.capture());
+		assertThat(finishCaptor.getValue().getStatus(), equalTo(ItemStatus.PASSED.name()));
+
+		List<SaveLogRQ> scenarioLogs = logs(storyId, "[PASSED] The scenario");
+		assertThat(scenarioLogs, hasSize(1));
+		assertThat(scenarioLogs.get(0).getMessage(), not(startsWith("\t")));
+		List<SaveLogRQ> firstStepLogs = logs(storyId, "[PASSED] Given I have empty step");
+		assertThat(firstStepLogs, hasSize(1));
+		assertThat(firstStepLogs.get(0).getMessage(), startsWith("\t"));
+		List<SaveLogRQ> secondStepLogs = logs(storyId, "[PASSED] Then I have another empty step");
+		assertThat(secondStepLogs, hasSize(1));
+		assertThat(secondStepLogs.get(0).getMessage(), startsWith("\t"));
+	}
+
+	@Test
+	public void verify_scenario_granularity_meta_is_applied_only_to_its_scenario() {
+		String coarseScenarioId = CommonUtils.namedId("scenario_");
+		String detailedScenarioId = CommonUtils.namedId("scenario_");
+		String stepId = CommonUtils.namedId("step_");
+		mockLaunch(client,
+				null,
+				storyId,
+				Arrays.asList(Pair.of(coarseScenarioId, Collections.<String>emptyList()),
+						Pair.of(detailedScenarioId, Collections.singletonList(stepId))
+				)
+		);
+		mockBatchLogging(client);
+
+		run(format, "stories/granularity/ScenarioGranularity.story", new EmptySteps());
+
+		verify(client, times(2)).startTestItem(same(storyId), any());
+		verify(client, never()).startTestItem(same(coarseScenarioId), any());
+		verify(client).startTestItem(same(detailedScenarioId), any());
+
+		List<SaveLogRQ> coarseLogs = logs(coarseScenarioId, "[PASSED]");
+		assertThat(coarseLogs, hasSize(2));
+		assertThat(coarseLogs.stream().map(SaveLogRQ::getMessage).collect(Collectors.toList()), everyItem(not(containsString("\n"))));
+		assertThat(logs(detailedScenarioId, "[PASSED]"), empty());
+	}
+}
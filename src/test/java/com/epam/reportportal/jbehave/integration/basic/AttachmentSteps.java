@@ -0,0 +1,42 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.integration.basic;
+
+import com.epam.reportportal.jbehave.ReportPortalFormat;
+import com.epam.reportportal.listeners.LogLevel;
+import org.jbehave.core.annotations.Given;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+public class AttachmentSteps {
+
+	public static final String FILE_NAME = "screenshot.txt";
+	public static final byte[] CONTENT = "The same attachment content".getBytes(StandardCharsets.UTF_8);
+
+	@Given("I have a step with an attachment")
+	public void a_step_with_an_attachment() {
+		ReportPortalFormat.getCurrentStoryReporter().ifPresent(r -> r.getLastStep().ifPresent(step -> {
+			try {
+				r.sendAttachment(step, LogLevel.INFO, "An attachment", FILE_NAME, new ByteArrayInputStream(CONTENT));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}));
+	}
+}
@@ -75,6 +75,7 @@ public class CallbackReportingSteps {
 		//noinspection ResultOfMethodCallIgnored
 		ItemTreeReporter.finishItem(rp.getClient(), finishTestItemRQ, tree.getLaunchId(), testItemLeaf).cache().blockingGet();
 		testItemLeaf.setStatus(ItemStatus.valueOf(status));
+		ReportPortalStoryReporter.markStatusChanged(testItemLeaf);
 	}
 
 	private void attachLog(ReportPortal rp, TestItemTree tree, TestItemTree.TestItemLeaf testItemLeaf) {
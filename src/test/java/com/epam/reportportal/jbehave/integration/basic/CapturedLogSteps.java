@@ -0,0 +1,44 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.integration.basic;
+
+import com.epam.reportportal.jbehave.ReportPortalFormat;
+import com.epam.reportportal.listeners.LogLevel;
+import org.jbehave.core.annotations.Given;
+
+public class CapturedLogSteps {
+
+	public static final String ERROR_MESSAGE = "A failed step with captured logs";
+
+	private static void capture(LogLevel level, int count) {
+		for (int i = 1; i <= count; i++) {
+			String message = "Captured line " + i;
+			ReportPortalFormat.getCurrentStoryReporter().ifPresent(r -> r.captureLog(level, message));
+		}
+	}
+
+	@Given("I have a passed step with $count captured logs")
+	public void a_passed_step_with_captured_logs(int count) {
+		capture(LogLevel.INFO, count);
+	}
+
+	@Given("I have a failed step with $count captured logs")
+	public void a_failed_step_with_captured_logs(int count) {
+		capture(LogLevel.WARN, count);
+		throw new IllegalStateException(ERROR_MESSAGE);
+	}
+}
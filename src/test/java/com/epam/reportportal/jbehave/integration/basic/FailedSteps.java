@@ -17,6 +17,7 @@
 package com.epam.reportportal.jbehave.integration.basic;
 
 import org.jbehave.core.annotations.Given;
+import org.jbehave.core.annotations.Named;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,4 +31,12 @@ public class FailedSteps {
 		LOGGER.info("Inside 'I have a failed step'");
 		throw new IllegalStateException(ERROR_MESSAGE);
 	}
+
+	@Given("I have a step which fails on <result> result")
+	public void i_have_a_step_which_fails_on_result(@Named("result") String result) {
+		LOGGER.info("Inside 'I have a step which fails on {} result'", result);
+		if ("failed".equals(result)) {
+			throw new IllegalStateException(ERROR_MESSAGE);
+		}
+	}
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.integration.basic;
+
+import org.jbehave.core.annotations.Given;
+import org.jbehave.core.annotations.Named;
+import org.jbehave.core.annotations.Then;
+
+public class GeneratedSteps {
+
+	public static final String ERROR_MESSAGE = "A generated failure";
+
+	@Given("a generated step $number")
+	public void a_generated_step(@Named("number") String number) {
+	}
+
+	@Given("a generated parameterized step $number with value $value")
+	public void a_generated_parameterized_step(@Named("number") String number, @Named("value") String value) {
+	}
+
+	@Then("the generated step fails")
+	public void the_generated_step_fails() {
+		throw new IllegalStateException(ERROR_MESSAGE);
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.integration.basic;
+
+import com.epam.reportportal.jbehave.ReportPortalFormat;
+import com.epam.reportportal.listeners.LogLevel;
+import org.jbehave.core.annotations.Given;
+
+public class LogFloodSteps {
+
+	@Given("I have a step which sends $count logs")
+	public void a_step_which_sends_logs(int count) {
+		for (int i = 1; i <= count; i++) {
+			String message = "Flood line " + i;
+			ReportPortalFormat.getCurrentStoryReporter().ifPresent(r -> r.sendLog(LogLevel.INFO, message));
+		}
+	}
+
+	@Given("I have a step which appends $count logs")
+	public void a_step_which_appends_logs(int count) {
+		for (int i = 1; i <= count; i++) {
+			ReportPortalFormat.appendLog(LogLevel.INFO, "Flood line " + i);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.integration.basic;
+
+import org.jbehave.core.annotations.Given;
+
+public class SlowSteps {
+
+	@Given("I have a step which runs for $millis milliseconds")
+	public void a_step_which_runs_for(long millis) throws InterruptedException {
+		Thread.sleep(millis);
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.log;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalFormat;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.integration.basic.LogFloodSteps;
+import com.epam.reportportal.listeners.LogLevel;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+import okhttp3.MultipartBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class LogRateLimitTest extends BaseTest {
+	private static class FinishingFormat extends ReportPortalStepFormat {
+		FinishingFormat(ReportPortal reportPortal) {
+			super(reportPortal);
+		}
+
+		void finish() {
+			finishLaunch();
+		}
+	}
+
+	private static final double NO_REFILL_RATE = 0.0001;
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final List<String> stepIds = Stream.generate(() -> CommonUtils.namedId("step_")).limit(2).collect(Collectors.toList());
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final FinishingFormat format = new FinishingFormat(ReportPortal.create(client, standardParameters(), testExecutor()));
+
+	private ArgumentCaptor<List<MultipartBody.Part>> logCaptor;
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(client, null, storyId, scenarioId, stepIds);
+		mockBatchLogging(client);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<SaveLogRQ> logs(String itemId, String text) {
+		if (logCaptor == null) {
+			logCaptor = ArgumentCaptor.forClass(List.class);
+			verify(client, timeout(TimeUnit.SECONDS.toMillis(10)).atLeast(1)).log(logCaptor.capture());
+		}
+		return filterLogs(logCaptor, l -> itemId.equals(l.getItemUuid()) && l.getMessage() != null && l.getMessage().contains(text));
+	}
+
+	@Test
+	public void verify_item_log_limit_drops_logs_and_reports_dropped_count() {
+		format.setLogRateLimiter(new LogRateLimiter(NO_REFILL_RATE, 2, 0, 0));
+
+		run(format, "stories/log/LogFlood.story", new LogFloodSteps());
+
+		for (String stepId : stepIds) {
+			assertThat(logs(stepId, "Flood line"), hasSize(2));
+			List<SaveLogRQ> dropped = logs(stepId, "logs dropped");
+			assertThat(dropped, hasSize(1));
+			assertThat(dropped.get(0).getLevel(), equalTo(LogLevel.WARN.name()));
+			assertThat(dropped.get(0).getMessage(), startsWith("3 logs dropped"));
+		}
+	}
+
+	@Test
+	public void verify_launch_log_limit_is_shared_between_items() {
+		format.setLogRateLimiter(new LogRateLimiter(NO_REFILL_RATE, 2, NO_REFILL_RATE, 3));
+
+		run(format, "stories/log/LogFlood.story", new LogFloodSteps());
+
+		// step item IDs are not bound to the step order, the second step is the one which hits the launch limit
+		String secondStepId = stepIds.stream().filter(id -> !logs(id, "4 logs dropped").isEmpty()).findAny().orElseThrow(AssertionError::new);
+		String firstStepId = stepIds.stream().filter(id -> !id.equals(secondStepId)).findAny().orElseThrow(AssertionError::new);
+		assertThat(logs(firstStepId, "Flood line"), hasSize(2));
+		assertThat(logs(secondStepId, "Flood line"), hasSize(1));
+		// item tokens are returned on launch limit drops, so all drops of the second step are counted by the launch bucket
+		assertThat(format.getLogRateLimiter().map(LogRateLimiter::getDroppedCount).orElse(0L), equalTo(4L));
+	}
+
+	@Test
+	public void verify_launch_dropped_count_is_reported_on_launch_finish_without_item_limits() {
+		format.setLogRateLimiter(new LogRateLimiter(0, 0, NO_REFILL_RATE, 3));
+
+		run(format, "stories/log/LogFlood.story", new LogFloodSteps());
+		format.finish();
+
+		assertThat(stepIds.stream().map(id -> logs(id, "Flood line").size()).collect(Collectors.toList()), containsInAnyOrder(3, 0));
+		assertThat(stepIds.stream().flatMap(id -> logs(id, "logs dropped").stream()).collect(Collectors.toList()), empty());
+		List<SaveLogRQ> launchLogs = filterLogs(logCaptor,
+				l -> l.getItemUuid() == null && l.getMessage() != null && l.getMessage().contains("logs dropped")
+		);
+		assertThat(launchLogs, hasSize(1));
+		assertThat(launchLogs.get(0).getLevel(), equalTo(LogLevel.WARN.name()));
+		assertThat(launchLogs.get(0).getMessage(), startsWith("7 logs dropped by the launch log rate limit"));
+	}
+
+	@Test
+	public void verify_appended_logs_are_limited() {
+		format.setLogRateLimiter(new LogRateLimiter(NO_REFILL_RATE, 2, 0, 0));
+
+		run(format, "stories/log/AppendedLogFlood.story", new LogFloodSteps());
+
+		for (String stepId : stepIds) {
+			assertThat(logs(stepId, "Flood line"), hasSize(2));
+			assertThat(logs(stepId, "logs dropped").get(0).getMessage(), startsWith("3 logs dropped"));
+		}
+	}
+
+	@Test
+	public void verify_appended_logs_are_captured() {
+		format.setStepLogCapture(2, 2);
+
+		run(format, "stories/log/AppendedLogFlood.story", new LogFloodSteps());
+
+		for (String stepId : stepIds) {
+			List<SaveLogRQ> lines = logs(stepId, "Flood line");
+			assertThat(lines.stream().map(SaveLogRQ::getMessage).collect(Collectors.toList()), containsInAnyOrder("Flood line 4", "Flood line 5"));
+		}
+	}
+
+	@Test
+	public void verify_appended_log_is_not_handled_without_a_running_step() {
+		assertThat(ReportPortalFormat.appendLog(LogLevel.INFO, "Flood line"), equalTo(false));
+	}
+
+	@Test
+	public void verify_item_token_is_returned_when_launch_limit_drops_a_log() {
+		LogRateLimiter limiter = new LogRateLimiter(NO_REFILL_RATE, 1, NO_REFILL_RATE, 1);
+		LogRateLimiter.Bucket first = limiter.newItemBucket();
+		LogRateLimiter.Bucket second = limiter.newItemBucket();
+
+		assertThat(limiter.tryAcquire(first), equalTo(true));
+		assertThat(limiter.tryAcquire(second), equalTo(false));
+		assertThat(second.getDroppedCount(), equalTo(1L));
+		assertThat(second.tryAcquire(), equalTo(true));
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class StackTraceRendererTest {
+
+	private static StackTraceElement frame(String className) {
+		return new StackTraceElement(className, "method", "Source.java", 1);
+	}
+
+	private static Throwable failure() {
+		IllegalStateException cause = new IllegalStateException("The cause");
+		cause.setStackTrace(new StackTraceElement[] { frame("com.example.Service"), frame("com.example.Steps"),
+				frame("sun.reflect.NativeMethodAccessorImpl"), frame("org.jbehave.core.steps.StepCreator") });
+		RuntimeException failure = new RuntimeException("The failure", cause);
+		failure.setStackTrace(new StackTraceElement[] { frame("com.example.Steps"), frame("sun.reflect.NativeMethodAccessorImpl"),
+				frame("org.jbehave.core.steps.StepCreator") });
+		return failure;
+	}
+
+	@Test
+	public void verify_excluded_frames_are_collapsed_and_common_frames_are_folded() {
+		String text = StackTraceRenderer.DEFAULT.render(failure());
+
+		assertThat(text, startsWith("java.lang.RuntimeException: The failure\n\tat com.example.Steps.method(Source.java:1)\n"));
+		assertThat(text, containsString("\t... 2 filtered frames\n"));
+		assertThat(text, containsString("Caused by: java.lang.IllegalStateException: The cause\n"));
+		assertThat(text, endsWith("\tat com.example.Service.method(Source.java:1)\n\t... 3 more\n"));
+		assertThat(text, not(containsString("sun.reflect")));
+	}
+
+	@Test
+	public void verify_frames_over_max_depth_are_omitted() {
+		String text = new StackTraceRenderer(Collections.emptyList(), 1).render(failure());
+
+		assertThat(text, containsString("\tat com.example.Steps.method(Source.java:1)\n\t... 2 frames omitted\n"));
+		assertThat(text, containsString("\tat com.example.Service.method(Source.java:1)\n\t... 3 more\n"));
+	}
+
+	@Test
+	public void verify_circular_cause_is_rendered_once() {
+		RuntimeException first = new RuntimeException("first");
+		RuntimeException second = new RuntimeException("second", first);
+		first.initCause(second);
+
+		String text = StackTraceRenderer.DEFAULT.render(first);
+
+		assertThat(text, containsString("[CIRCULAR REFERENCE: java.lang.RuntimeException: first]"));
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.log;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.integration.basic.CapturedLogSteps;
+import com.epam.reportportal.listeners.LogLevel;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+import okhttp3.MultipartBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class StepLogCaptureTest extends BaseTest {
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final List<String> stepIds = Stream.generate(() -> CommonUtils.namedId("step_")).limit(2).collect(Collectors.toList());
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(client, null, storyId, scenarioId, stepIds);
+		mockBatchLogging(client);
+	}
+
+	// steps capture their lines with different levels, since step item IDs are not bound to the step order
+	private List<SaveLogRQ> capturedLogs(LogLevel level) {
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<MultipartBody.Part>> logCaptor = ArgumentCaptor.forClass(List.class);
+		verify(client, timeout(TimeUnit.SECONDS.toMillis(10)).atLeast(1)).log(logCaptor.capture());
+		List<SaveLogRQ> logs = filterLogs(logCaptor,
+				l -> level.name().equals(l.getLevel()) && l.getMessage() != null && l.getMessage().contains("Captured line")
+		);
+		List<String> itemIds = logs.stream().map(SaveLogRQ::getItemUuid).distinct().collect(Collectors.toList());
+		assertThat(itemIds, hasSize(lessThanOrEqualTo(1)));
+		assertThat(itemIds, everyItem(isIn(stepIds)));
+		return logs;
+	}
+
+	private static List<String> messages(List<SaveLogRQ> logs) {
+		return logs.stream().map(SaveLogRQ::getMessage).collect(Collectors.toList());
+	}
+
+	private static SaveLogRQ log(List<SaveLogRQ> logs, String message) {
+		return logs.stream().filter(l -> message.equals(l.getMessage())).findAny().orElseThrow(AssertionError::new);
+	}
+
+	@Test
+	public void verify_captured_logs_are_sent_one_entry_per_line_on_step_finish() {
+		format.setStepLogCapture(2, 1);
+
+		run(format, "stories/log/CapturedLogs.story", new CapturedLogSteps());
+
+		List<SaveLogRQ> passedStepLogs = capturedLogs(LogLevel.INFO);
+		assertThat(passedStepLogs, hasSize(1));
+		assertThat(passedStepLogs.get(0).getMessage(), equalTo("Captured line 3"));
+
+		List<SaveLogRQ> failedStepLogs = capturedLogs(LogLevel.WARN);
+		assertThat(messages(failedStepLogs), containsInAnyOrder("Captured line 2", "Captured line 3"));
+		assertThat(failedStepLogs.get(0).getItemUuid(), not(equalTo(passedStepLogs.get(0).getItemUuid())));
+		Date secondLineTime = log(failedStepLogs, "Captured line 2").getLogTime();
+		assertThat(log(failedStepLogs, "Captured line 3").getLogTime(), greaterThanOrEqualTo(secondLineTime));
+	}
+
+	@Test
+	public void verify_passed_step_logs_are_dropped_if_no_lines_are_kept() {
+		format.setStepLogCapture(10, 0);
+
+		run(format, "stories/log/CapturedLogs.story", new CapturedLogSteps());
+
+		assertThat(capturedLogs(LogLevel.INFO), empty());
+		assertThat(capturedLogs(LogLevel.WARN), hasSize(3));
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.jbehave.log;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.integration.basic.SlowSteps;
+import com.epam.reportportal.listeners.LogLevel;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+import okhttp3.MultipartBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class StepWatchdogTest extends BaseTest {
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final String stepId = CommonUtils.namedId("step_");
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(client, null, storyId, scenarioId, stepId);
+		mockBatchLogging(client);
+	}
+
+	@Test
+	public void verify_stalled_step_gets_progress_logs_with_thread_dump() {
+		format.setStepWatchdog(100, 100, TimeUnit.MILLISECONDS, true);
+
+		run(format, "stories/log/SlowStep.story", new SlowSteps());
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<MultipartBody.Part>> logCaptor = ArgumentCaptor.forClass(List.class);
+		// progress logs are sent from the watchdog thread
+		verify(client, timeout(TimeUnit.SECONDS.toMillis(10)).atLeast(1)).log(logCaptor.capture());
+		List<SaveLogRQ> progressLogs = filterLogs(logCaptor,
+				l -> stepId.equals(l.getItemUuid()) && l.getMessage() != null && l.getMessage().contains("still running")
+		);
+		assertThat(progressLogs, not(empty()));
+		assertThat(progressLogs.get(0).getLevel(), equalTo(LogLevel.WARN.name()));
+		assertThat(progressLogs.get(0).getMessage(), containsString(SlowSteps.class.getName()));
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.rerun;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.ReportPortalStoryReporter;
+import com.epam.reportportal.jbehave.integration.basic.FailedSteps;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class RerunManifestTest extends BaseTest {
+
+	private static final String FAILED_SCENARIO_PATH = "stories/status/FailedScenario.story";
+
+	private static final String STORY_TEXT = "Scenario: First scenario\n" + "Given I have empty step\n\n" + "Scenario: Second scenario\n"
+			+ "Given I have parameter <value>\n\n" + "Examples:\n" + "|value|\n" + "|one|\n" + "|two|\n";
+
+	@TempDir
+	public Path directory;
+
+	@Test
+	public void verify_manifest_contains_failed_story_and_scenario() throws IOException {
+		ReportPortalClient client = mock(ReportPortalClient.class);
+		String launchId = CommonUtils.namedId("launch_");
+		mockLaunch(client, launchId, CommonUtils.namedId("story_"), CommonUtils.namedId("scenario_"), CommonUtils.namedId("step_"));
+		mockBatchLogging(client);
+		ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client, standardParameters(), testExecutor()));
+
+		run(format, FAILED_SCENARIO_PATH, new FailedSteps());
+
+		Path file = directory.resolve("rerun.json");
+		RerunManifest.fromTree(format.getItemTree()).write(file);
+		RerunManifest manifest = RerunManifest.read(file);
+
+		assertThat(manifest.getLaunchUuid(), equalTo(launchId));
+		assertThat(manifest.getStoryPaths(), contains(FAILED_SCENARIO_PATH));
+		RerunManifest.StoryEntry story = manifest.getStory(FAILED_SCENARIO_PATH).orElseThrow(AssertionError::new);
+		assertThat(story.getScenarios(), hasSize(1));
+		assertThat(story.getScenarios().get(0).getTitle(), equalTo("The scenario"));
+		assertThat(story.getScenarios().get(0).getExamples(), empty());
+	}
+
+	@Test
+	public void verify_parser_leaves_only_failed_scenarios_and_rows() {
+		Map<String, String> row = new HashMap<>();
+		row.put("value", "two");
+		RerunManifest.ScenarioEntry scenario = new RerunManifest.ScenarioEntry();
+		scenario.setTitle("Second scenario");
+		scenario.getExamples().add(row);
+		RerunManifest.StoryEntry story = new RerunManifest.StoryEntry();
+		story.setPath("stories/Rerun.story");
+		story.getScenarios().add(scenario);
+		RerunManifest manifest = new RerunManifest();
+		manifest.getStories().add(story);
+
+		RerunStoryParser parser = new RerunStoryParser(new RegexStoryParser(), manifest);
+
+		Story result = parser.parseStory(STORY_TEXT, "stories/Rerun.story");
+		assertThat(result.getScenarios(), hasSize(1));
+		Scenario filtered = result.getScenarios().get(0);
+		assertThat(filtered.getTitle(), equalTo("Second scenario"));
+		assertThat(filtered.getExamplesTable().getRows(), contains(Collections.singletonMap("value", "two")));
+
+		Story other = parser.parseStory(STORY_TEXT, "stories/Other.story");
+		assertThat(other.getScenarios(), hasSize(2));
+	}
+
+	@Test
+	public void verify_parser_matches_scenarios_without_title_by_tree_name() {
+		RerunManifest.ScenarioEntry scenario = new RerunManifest.ScenarioEntry();
+		scenario.setTitle(ReportPortalStoryReporter.NO_NAME);
+		RerunManifest.StoryEntry story = new RerunManifest.StoryEntry();
+		story.setPath("stories/Rerun.story");
+		story.getScenarios().add(scenario);
+		RerunManifest manifest = new RerunManifest();
+		manifest.getStories().add(story);
+
+		Story result = new RerunStoryParser(new RegexStoryParser(), manifest).parseStory("Scenario:\n" + "Given I have empty step\n\n"
+				+ STORY_TEXT, "stories/Rerun.story");
+		assertThat(result.getScenarios(), hasSize(1));
+		assertThat(result.getScenarios().get(0).getTitle(), emptyString());
+	}
+}
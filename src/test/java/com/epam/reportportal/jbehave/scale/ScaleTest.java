@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.scale;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalFormat;
+import com.epam.reportportal.jbehave.ReportPortalScenarioFormat;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.integration.basic.GeneratedSteps;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.OperationCompletionRS;
+import com.epam.ta.reportportal.ws.model.item.ItemCreatedRS;
+import com.epam.ta.reportportal.ws.model.launch.StartLaunchRS;
+import io.reactivex.Maybe;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.epam.reportportal.util.test.CommonUtils.createMaybe;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs generated suites through a real Embedder against a stub client and checks time and heap ceilings, to catch scaling regressions
+ * like tree retention or quadratic lookups.
+ */
+public class ScaleTest extends BaseTest {
+	// ceilings grow linearly with the suite size, the base covers class loading and JIT warm-up of the first run in a JVM
+	private static final long TIME_BASE = TimeUnit.SECONDS.toNanos(10);
+	private static final long TIME_PER_STEP = TimeUnit.MICROSECONDS.toNanos(1500);
+	private static final long HEAP_BASE = 16L * 1024 * 1024;
+	private static final long HEAP_PER_STEP = 5L * 1024;
+
+	// 'stubOnly' mocks do not record invocations, so the mock itself does not hold every request in memory
+	private final ReportPortalClient client = mock(ReportPortalClient.class, withSettings().stubOnly());
+	private final AtomicInteger startedItems = new AtomicInteger();
+
+	@TempDir
+	public Path directory;
+
+	@BeforeEach
+	public void setupMock() {
+		String launchUuid = CommonUtils.namedId("launch_");
+		when(client.startLaunch(any())).thenReturn(createMaybe(new StartLaunchRS(launchUuid, 1L)));
+		when(client.finishLaunch(eq(launchUuid), any())).thenReturn(createMaybe(new OperationCompletionRS()));
+		when(client.startTestItem(any())).thenAnswer(i -> createdItem());
+		when(client.startTestItem(anyString(), any())).thenAnswer(i -> createdItem());
+		when(client.finishTestItem(anyString(), any())).thenReturn(createMaybe(new OperationCompletionRS()));
+		mockBatchLogging(client);
+	}
+
+	private Maybe<ItemCreatedRS> createdItem() {
+		startedItems.incrementAndGet();
+		String uuid = CommonUtils.namedId("item_");
+		return createMaybe(new ItemCreatedRS(uuid, uuid));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private void runAndVerify(SyntheticSuite suite, ReportPortalFormat format) {
+		List<String> paths = suite.generate(directory);
+		long heapBefore = usedHeap();
+		long start = System.nanoTime();
+
+		run(SyntheticSuite.loader(directory), format, paths, new RegexStoryParser(), new GeneratedSteps());
+
+		long time = System.nanoTime() - start;
+		long heapGrowth = usedHeap() - heapBefore;
+
+		assertThat(startedItems.get(), greaterThanOrEqualTo(suite.stepCount()));
+		assertThat("Suite run time, ns", time, lessThan(TIME_BASE + TIME_PER_STEP * suite.stepCount()));
+		assertThat("Heap growth after the run, bytes", heapGrowth, lessThan(HEAP_BASE + HEAP_PER_STEP * suite.stepCount()));
+		// keep the format and its item tree reachable during the heap measurement
+		assertThat(format.getItemTree().getTestItems().size(), greaterThanOrEqualTo(paths.size()));
+	}
+
+	private static SyntheticSuite wideSuite() {
+		return new SyntheticSuite().stories(10).scenarios(5).rows(10).steps(5).givenStories(2).failureRatio(0.1);
+	}
+
+	@Test
+	public void verify_step_format_scales_on_a_suite_with_examples_and_given_stories() {
+		runAndVerify(wideSuite(), new ReportPortalStepFormat(ReportPortal.create(client, standardParameters(), testExecutor())));
+	}
+
+	@Test
+	public void verify_scenario_format_scales_on_a_suite_with_examples_and_given_stories() {
+		runAndVerify(wideSuite(), new ReportPortalScenarioFormat(ReportPortal.create(client, standardParameters(), testExecutor())));
+	}
+
+	@Test
+	public void verify_step_format_scales_on_a_flat_suite() {
+		runAndVerify(new SyntheticSuite().stories(20).scenarios(20).steps(10).failureRatio(0.05),
+				new ReportPortalStepFormat(ReportPortal.create(client, standardParameters(), testExecutor()))
+		);
+	}
+}
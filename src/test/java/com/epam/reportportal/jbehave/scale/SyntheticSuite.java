@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.scale;
+
+import org.jbehave.core.io.LoadFromClasspath;
+import org.jbehave.core.io.StoryLoader;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates story files of a configurable shape into a directory: N stories, M scenarios per story, K example rows per scenario, S steps
+ * per scenario, a number of given stories included by every story and a ratio of scenarios with a failed step.
+ */
+public class SyntheticSuite {
+	private static final String FOLDER = "generated";
+
+	private int stories = 1;
+	private int scenarios = 1;
+	private int rows = 0;
+	private int steps = 1;
+	private int givenStories = 0;
+	private double failureRatio = 0;
+	private long seed = 42;
+
+	public SyntheticSuite stories(int storyNumber) {
+		stories = storyNumber;
+		return this;
+	}
+
+	public SyntheticSuite scenarios(int scenarioNumber) {
+		scenarios = scenarioNumber;
+		return this;
+	}
+
+	public SyntheticSuite rows(int rowNumber) {
+		rows = rowNumber;
+		return this;
+	}
+
+	public SyntheticSuite steps(int stepNumber) {
+		steps = stepNumber;
+		return this;
+	}
+
+	public SyntheticSuite givenStories(int givenStoryNumber) {
+		givenStories = givenStoryNumber;
+		return this;
+	}
+
+	public SyntheticSuite failureRatio(double ratio) {
+		failureRatio = ratio;
+		return this;
+	}
+
+	public SyntheticSuite seed(long randomSeed) {
+		seed = randomSeed;
+		return this;
+	}
+
+	/**
+	 * @return number of steps which will be executed for the shape, not counting given stories
+	 */
+	public int stepCount() {
+		return stories * scenarios * Math.max(rows, 1) * steps;
+	}
+
+	/**
+	 * Writes story files into the given directory.
+	 *
+	 * @param directory a root directory for the stories
+	 * @return story paths, which should be passed to the Embedder
+	 */
+	@Nonnull
+	public List<String> generate(@Nonnull Path directory) {
+		Random random = new Random(seed);
+		List<String> givenPaths = IntStream.range(0, givenStories).mapToObj(i -> FOLDER + "/given_" + i + ".story").collect(Collectors.toList());
+		for (String path : givenPaths) {
+			write(directory, path, "Scenario: A given scenario\n" + "Given a generated step 0\n");
+		}
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < stories; i++) {
+			String path = FOLDER + "/story_" + i + ".story";
+			StringBuilder sb = new StringBuilder();
+			if (!givenPaths.isEmpty()) {
+				sb.append("GivenStories: ").append(String.join(",", givenPaths)).append("\n\n");
+			}
+			for (int s = 0; s < scenarios; s++) {
+				scenario(sb, i, s, random.nextDouble() < failureRatio ? random.nextInt(steps) : -1);
+			}
+			write(directory, path, sb.toString());
+			result.add(path);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a story loader for the generated stories.
+	 *
+	 * @param directory the directory which was passed to {@link #generate(Path)}
+	 * @return story loader
+	 */
+	@Nonnull
+	public static StoryLoader loader(@Nonnull Path directory) {
+		try {
+			URL[] urls = new URL[] { directory.toUri().toURL() };
+			return new LoadFromClasspath(new URLClassLoader(urls, SyntheticSuite.class.getClassLoader()));
+		} catch (MalformedURLException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	private void scenario(StringBuilder sb, int story, int scenario, int failedStep) {
+		sb.append("Scenario: Story ").append(story).append(" scenario ").append(scenario).append('\n');
+		for (int i = 0; i < steps; i++) {
+			if (i == failedStep) {
+				sb.append("Then the generated step fails\n");
+			} else if (rows > 0) {
+				sb.append("Given a generated parameterized step ").append(i).append(" with value <value>\n");
+			} else {
+				sb.append("Given a generated step ").append(i).append('\n');
+			}
+		}
+		if (rows > 0) {
+			sb.append("\nExamples:\n|value|\n");
+			for (int r = 0; r < rows; r++) {
+				sb.append("|row_").append(r).append("|\n");
+			}
+		}
+		sb.append('\n');
+	}
+
+	private static void write(Path directory, String path, String text) {
+		Path file = directory.resolve(path);
+		try {
+			Files.createDirectories(file.getParent());
+			Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
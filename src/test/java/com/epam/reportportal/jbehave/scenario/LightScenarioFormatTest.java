@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.scenario;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalLightScenarioFormat;
+import com.epam.reportportal.jbehave.integration.basic.EmptySteps;
+import com.epam.reportportal.jbehave.integration.basic.FailedSteps;
+import com.epam.reportportal.listeners.ItemStatus;
+import com.epam.reportportal.listeners.ItemType;
+import com.epam.reportportal.listeners.LogLevel;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.FinishTestItemRQ;
+import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+import okhttp3.MultipartBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+public class LightScenarioFormatTest extends BaseTest {
+
+	private final String storyId = CommonUtils.namedId("story_");
+	private final String scenarioId = CommonUtils.namedId("scenario_");
+	private final List<String> stepIds = Stream.generate(() -> CommonUtils.namedId("step_")).limit(2).collect(Collectors.toList());
+
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ReportPortalLightScenarioFormat format = new ReportPortalLightScenarioFormat(ReportPortal.create(client,
+			standardParameters(),
+			testExecutor()
+	));
+
+	@BeforeEach
+	public void setupMock() {
+		mockLaunch(client, null, storyId, scenarioId, stepIds);
+		mockBatchLogging(client);
+	}
+
+	private static final String FAILED_PASSED_STORY = "stories/status/FailedPassedScenario.story";
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void verify_steps_are_reported_as_log_lines_of_scenario() {
+		run(format, FAILED_PASSED_STORY, new FailedSteps(), new EmptySteps());
+
+		ArgumentCaptor<StartTestItemRQ> captor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+		verify(client).startTestItem(any());
+		verify(client).startTestItem(same(storyId), captor.capture());
+		verify(client, never()).startTestItem(same(scenarioId), any());
+
+		StartTestItemRQ scenarioRq = captor.getValue();
+		assertThat(scenarioRq.getType(), equalTo(ItemType.STEP.name()));
+		assertThat(scenarioRq.isHasStats(), equalTo(Boolean.TRUE));
+
+		ArgumentCaptor<FinishTestItemRQ> finishCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		verify(client).finishTestItem(same(scenarioId), finishCaptor.capture());
+		assertThat(finishCaptor.getValue().getStatus(), equalTo(ItemStatus.FAILED.name()));
+
+		ArgumentCaptor<List<MultipartBody.Part>> logCaptor = ArgumentCaptor.forClass(List.class);
+		verify(client, atLeast(1)).log(logCaptor.capture());
+		List<SaveLogRQ> failedLogs = filterLogs(logCaptor,
+				l -> scenarioId.equals(l.getItemUuid()) && l.getMessage() != null && l.getMessage().contains("[FAILED]")
+		);
+		assertThat(failedLogs, hasSize(1));
+		SaveLogRQ failedLog = failedLogs.get(0);
+		assertThat(failedLog.getLevel(), equalTo(LogLevel.ERROR.name()));
+		assertThat(failedLog.getMessage(), not(containsString("\n")));
+		assertThat(failedLog.getMessage(),
+				allOf(containsString("[FAILED] Given I have a failed step"), containsString(FailedSteps.ERROR_MESSAGE))
+		);
+
+		List<SaveLogRQ> skippedLogs = filterLogs(logCaptor,
+				l -> scenarioId.equals(l.getItemUuid()) && l.getMessage() != null && l.getMessage().contains("[SKIPPED]")
+		);
+		assertThat(skippedLogs, hasSize(1));
+		SaveLogRQ skippedLog = skippedLogs.get(0);
+		assertThat(skippedLog.getLevel(), equalTo(LogLevel.INFO.name()));
+		assertThat(skippedLog.getMessage(), containsString("[SKIPPED] Given I have empty step"));
+		assertThat(skippedLog.getLogTime(), greaterThanOrEqualTo(failedLog.getLogTime()));
+
+		List<SaveLogRQ> errorLogs = filterLogs(logCaptor,
+				l -> LogLevel.ERROR.name().equals(l.getLevel()) && l.getMessage() != null && !l.getMessage().contains("[FAILED]")
+						&& l.getMessage().contains("java.lang.IllegalStateException: " + FailedSteps.ERROR_MESSAGE)
+		);
+		assertThat(errorLogs, hasSize(1));
+		assertThat(errorLogs.get(0).getItemUuid(), equalTo(scenarioId));
+	}
+}
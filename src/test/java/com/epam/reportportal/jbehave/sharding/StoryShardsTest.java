@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.sharding;
+
+import com.epam.reportportal.jbehave.BaseTest;
+import com.epam.reportportal.jbehave.ReportPortalStepFormat;
+import com.epam.reportportal.jbehave.integration.basic.EmptySteps;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class StoryShardsTest extends BaseTest {
+
+	@TempDir
+	public Path directory;
+
+	private DurationHistory history(long... durations) {
+		DurationHistory history = new DurationHistory(directory.resolve("durations.tsv"));
+		for (int i = 0; i < durations.length; i++) {
+			history.record("stories/story_" + i + ".story", durations[i]);
+		}
+		return history;
+	}
+
+	@Test
+	public void verify_longest_stories_are_spread_between_shards() {
+		DurationHistory history = history(100, 90, 60, 50, 40, 10);
+		List<String> paths = Arrays.asList("stories/story_0.story",
+				"stories/story_1.story",
+				"stories/story_2.story",
+				"stories/story_3.story",
+				"stories/story_4.story",
+				"stories/story_5.story"
+		);
+
+		List<List<String>> shards = StoryShards.balance(paths, 2, history);
+
+		assertThat(shards, hasSize(2));
+		// 100 + 50 + 40 = 190 and 90 + 60 + 10 = 160
+		assertThat(shards.get(0), contains("stories/story_0.story", "stories/story_3.story", "stories/story_4.story"));
+		assertThat(shards.get(1), contains("stories/story_1.story", "stories/story_2.story", "stories/story_5.story"));
+		assertThat(StoryShards.shard(paths, 2, 1, history), equalTo(shards.get(1)));
+	}
+
+	@Test
+	public void verify_unknown_stories_are_estimated_with_an_average_duration() {
+		DurationHistory history = history(100, 20);
+		List<String> paths = Arrays.asList("stories/story_0.story", "stories/story_1.story", "stories/new_1.story", "stories/new_2.story");
+
+		List<List<String>> shards = StoryShards.balance(paths, 2, history);
+
+		// new stories are estimated as (100 + 20) / 2 = 60
+		assertThat(shards.get(0), contains("stories/story_0.story", "stories/story_1.story"));
+		assertThat(shards.get(1), contains("stories/new_1.story", "stories/new_2.story"));
+	}
+
+	@Test
+	public void verify_history_is_smoothed_and_persisted() throws IOException {
+		DurationHistory history = history(100);
+		history.record("stories/story_0.story", 200);
+		assertThat(history.get("stories/story_0.story"), equalTo(130L));
+
+		history.save();
+		DurationHistory loaded = DurationHistory.load(history.getFile());
+		assertThat(loaded.getDurations(), equalTo(history.getDurations()));
+	}
+
+	@Test
+	public void verify_histories_of_parallel_jvms_are_merged_on_save() throws IOException {
+		DurationHistory first = history(100);
+		first.save();
+		DurationHistory second = DurationHistory.load(first.getFile());
+		DurationHistory third = DurationHistory.load(first.getFile());
+
+		second.record("stories/story_0.story", 200);
+		second.save();
+		third.record("stories/story_1.story", 50);
+		third.save();
+
+		DurationHistory loaded = DurationHistory.load(first.getFile());
+		assertThat(loaded.get("stories/story_0.story"), equalTo(130L));
+		assertThat(loaded.get("stories/story_1.story"), equalTo(50L));
+	}
+
+	@Test
+	public void verify_format_records_story_durations() {
+		ReportPortalClient client = mock(ReportPortalClient.class);
+		mockLaunch(client, null, CommonUtils.namedId("story_"), CommonUtils.namedId("scenario_"), CommonUtils.namedId("step_"));
+		mockBatchLogging(client);
+		ReportPortalStepFormat format = new ReportPortalStepFormat(ReportPortal.create(client, standardParameters(), testExecutor()));
+		DurationHistory history = new DurationHistory(directory.resolve("durations.tsv"));
+		format.setDurationHistory(history);
+
+		run(format, "stories/DummyScenario.story", new EmptySteps());
+
+		assertThat(history.getDurations().keySet(), contains("stories/DummyScenario.story"));
+		assertThat(history.get("stories/DummyScenario.story"), greaterThanOrEqualTo(0L));
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.status;
+
+import com.epam.reportportal.jbehave.ReportPortalStepStoryReporter;
+import com.epam.reportportal.jbehave.ReportPortalStoryReporter;
+import com.epam.reportportal.listeners.ItemStatus;
+import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.tree.TestItemTree;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class AggregatedStatusTest {
+
+	private static final String STEP = "Given I have empty step";
+	private static final String STORY = "Scenario: Aggregated status\n" + STEP + "\n";
+
+	private final ReportPortalStoryReporter reporter = new ReportPortalStepStoryReporter(() -> Launch.NOOP_LAUNCH, new TestItemTree());
+
+	@Test
+	public void verify_parent_status_is_aggregated_while_steps_finish() {
+		Story story = new RegexStoryParser().parseStory(STORY, "stories/status/aggregated.story");
+		Scenario scenario = story.getScenarios().get(0);
+		reporter.beforeStory(story, false);
+		reporter.beforeScenario(scenario);
+
+		reporter.beforeStep(STEP);
+		TestItemTree.TestItemLeaf scenarioLeaf = reporter.getLastStep()
+				.map(s -> s.<TestItemTree.TestItemLeaf>getAttribute(ReportPortalStoryReporter.PARENT))
+				.orElseThrow(() -> new IllegalStateException("No step was started"));
+		assertThat(reporter.getAggregatedStatus(scenarioLeaf), nullValue());
+
+		reporter.successful(STEP);
+		assertThat(reporter.getAggregatedStatus(scenarioLeaf), equalTo(ItemStatus.PASSED));
+
+		reporter.beforeStep(STEP);
+		reporter.failed(STEP, new IllegalStateException("Step failed"));
+		assertThat(reporter.getAggregatedStatus(scenarioLeaf), equalTo(ItemStatus.FAILED));
+
+		reporter.beforeStep(STEP);
+		reporter.successful(STEP);
+		assertThat(reporter.getAggregatedStatus(scenarioLeaf), equalTo(ItemStatus.FAILED));
+
+		reporter.afterScenario();
+		assertThat(scenarioLeaf.getStatus(), equalTo(ItemStatus.FAILED));
+		reporter.afterStory(false);
+	}
+
+	@Test
+	public void verify_status_updated_from_outside_is_aggregated() {
+		Story story = new RegexStoryParser().parseStory(STORY, "stories/status/aggregated.story");
+		reporter.beforeStory(story, false);
+		reporter.beforeScenario(story.getScenarios().get(0));
+		reporter.beforeStep(STEP);
+		reporter.successful(STEP);
+
+		TestItemTree.TestItemLeaf step = reporter.getLastStep().orElseThrow(() -> new IllegalStateException("No step was started"));
+		TestItemTree.TestItemLeaf scenarioLeaf = step.getAttribute(ReportPortalStoryReporter.PARENT);
+		reporter.updateStatus(step, ItemStatus.FAILED);
+		reporter.afterScenario();
+
+		assertThat(scenarioLeaf.getStatus(), equalTo(ItemStatus.FAILED));
+		reporter.afterStory(false);
+	}
+
+	@Test
+	public void verify_status_updated_from_outside_can_be_taken_back() {
+		Story story = new RegexStoryParser().parseStory(STORY, "stories/status/aggregated.story");
+		reporter.beforeStory(story, false);
+		reporter.beforeScenario(story.getScenarios().get(0));
+		reporter.beforeStep(STEP);
+		reporter.failed(STEP, new IllegalStateException("Step failed"));
+
+		TestItemTree.TestItemLeaf step = reporter.getLastStep().orElseThrow(() -> new IllegalStateException("No step was started"));
+		TestItemTree.TestItemLeaf scenarioLeaf = step.getAttribute(ReportPortalStoryReporter.PARENT);
+		assertThat(reporter.getAggregatedStatus(scenarioLeaf), equalTo(ItemStatus.FAILED));
+		reporter.updateStatus(step, ItemStatus.PASSED);
+		assertThat(reporter.getAggregatedStatus(scenarioLeaf), equalTo(ItemStatus.PASSED));
+		reporter.afterScenario();
+
+		assertThat(scenarioLeaf.getStatus(), equalTo(ItemStatus.PASSED));
+		reporter.afterStory(false);
+	}
+
+	@Test
+	public void verify_status_set_on_leaf_directly_and_marked_is_aggregated_on_parent_finish() {
+		Story story = new RegexStoryParser().parseStory(STORY, "stories/status/aggregated.story");
+		reporter.beforeStory(story, false);
+		reporter.beforeScenario(story.getScenarios().get(0));
+		reporter.beforeStep(STEP);
+		reporter.successful(STEP);
+
+		TestItemTree.TestItemLeaf step = reporter.getLastStep().orElseThrow(() -> new IllegalStateException("No step was started"));
+		TestItemTree.TestItemLeaf scenarioLeaf = step.getAttribute(ReportPortalStoryReporter.PARENT);
+		step.setStatus(ItemStatus.FAILED);
+		ReportPortalStoryReporter.markStatusChanged(step);
+		reporter.afterScenario();
+
+		assertThat(scenarioLeaf.getStatus(), equalTo(ItemStatus.FAILED));
+		reporter.afterStory(false);
+	}
+
+	@Test
+	public void verify_status_set_on_leaf_directly_without_mark_is_not_aggregated() {
+		Story story = new RegexStoryParser().parseStory(STORY, "stories/status/aggregated.story");
+		reporter.beforeStory(story, false);
+		reporter.beforeScenario(story.getScenarios().get(0));
+		reporter.beforeStep(STEP);
+		reporter.successful(STEP);
+
+		TestItemTree.TestItemLeaf step = reporter.getLastStep().orElseThrow(() -> new IllegalStateException("No step was started"));
+		TestItemTree.TestItemLeaf scenarioLeaf = step.getAttribute(ReportPortalStoryReporter.PARENT);
+		step.setStatus(ItemStatus.FAILED);
+		reporter.afterScenario();
+
+		assertThat(scenarioLeaf.getStatus(), equalTo(ItemStatus.PASSED));
+		reporter.afterStory(false);
+	}
+}
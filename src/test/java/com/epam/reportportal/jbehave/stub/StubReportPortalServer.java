@@ -0,0 +1,227 @@
+/*
+ * Copyright 2021 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.jbehave.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * A lightweight in-process stand-in for Report Portal API endpoints which are used by the client: launch start/finish, item start/finish
+ * and log (batch) saving. Listens on the loopback interface only, records request counts and payload sizes per endpoint and supports
+ * response latency and error injection.
+ */
+public class StubReportPortalServer implements Closeable {
+
+	public enum Endpoint {
+		START_LAUNCH, FINISH_LAUNCH, START_ITEM, FINISH_ITEM, LOG, OTHER
+	}
+
+	private static final Pattern START_LAUNCH = Pattern.compile(".*/launch/?$");
+	private static final Pattern FINISH_LAUNCH = Pattern.compile(".*/launch/[^/]+/finish/?$");
+	private static final Pattern START_ITEM = Pattern.compile(".*/item(/[^/]+)?/?$");
+	private static final Pattern FINISH_ITEM = Pattern.compile(".*/item/[^/]+/?$");
+	private static final Pattern LOG = Pattern.compile(".*/log/?$");
+	private static final String ERROR_RESPONSE = "{\"errorCode\":5000,\"message\":\"Injected error\"}";
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<Endpoint, AtomicLong> requests = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, AtomicLong> payloads = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+	private final Set<Endpoint> errorEndpoints = Collections.synchronizedSet(EnumSet.noneOf(Endpoint.class));
+	private final AtomicLong ids = new AtomicLong();
+	private volatile long latency;
+	private volatile int errorEvery;
+
+	public StubReportPortalServer() throws IOException {
+		for (Endpoint e : Endpoint.values()) {
+			requests.put(e, new AtomicLong());
+			payloads.put(e, new AtomicLong());
+			errors.put(e, new AtomicLong());
+		}
+		executor = Executors.newFixedThreadPool(8, r -> {
+			Thread t = new Thread(r);
+			t.setDaemon(true);
+			return t;
+		});
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * @return a base URL to set into {@link com.epam.reportportal.listeners.ListenerParameters#setBaseUrl(String)}
+	 */
+	@Nonnull
+	public String getBaseUrl() {
+		InetSocketAddress address = server.getAddress();
+		return "http://" + address.getHostString() + ":" + address.getPort();
+	}
+
+	/**
+	 * Sets a delay before each response.
+	 *
+	 * @param value    delay value
+	 * @param timeUnit delay time unit
+	 * @return self
+	 */
+	public StubReportPortalServer withLatency(long value, @Nonnull TimeUnit timeUnit) {
+		latency = timeUnit.toMillis(value);
+		return this;
+	}
+
+	/**
+	 * Makes every n-th request to the given endpoints fail with HTTP 500.
+	 *
+	 * @param every     error frequency, '1' means every request fails, '0' disables error injection
+	 * @param endpoints endpoints to fail
+	 * @return self
+	 */
+	public StubReportPortalServer withErrors(int every, @Nonnull Endpoint... endpoints) {
+		errorEvery = every;
+		errorEndpoints.clear();
+		errorEndpoints.addAll(Arrays.asList(endpoints));
+		return this;
+	}
+
+	public long getRequestCount(@Nonnull Endpoint endpoint) {
+		return requests.get(endpoint).get();
+	}
+
+	public long getPayloadBytes(@Nonnull Endpoint endpoint) {
+		return payloads.get(endpoint).get();
+	}
+
+	public long getErrorCount(@Nonnull Endpoint endpoint) {
+		return errors.get(endpoint).get();
+	}
+
+	public long getTotalRequestCount() {
+		return requests.values().stream().mapToLong(AtomicLong::get).sum();
+	}
+
+	public long getTotalPayloadBytes() {
+		return payloads.values().stream().mapToLong(AtomicLong::get).sum();
+	}
+
+	private static Endpoint endpoint(String method, String path) {
+		if ("POST".equals(method)) {
+			if (START_LAUNCH.matcher(path).matches()) {
+				return Endpoint.START_LAUNCH;
+			}
+			if (LOG.matcher(path).matches()) {
+				return Endpoint.LOG;
+			}
+			if (START_ITEM.matcher(path).matches()) {
+				return Endpoint.START_ITEM;
+			}
+		} else if ("PUT".equals(method)) {
+			if (FINISH_LAUNCH.matcher(path).matches()) {
+				return Endpoint.FINISH_LAUNCH;
+			}
+			if (FINISH_ITEM.matcher(path).matches()) {
+				return Endpoint.FINISH_ITEM;
+			}
+		}
+		return Endpoint.OTHER;
+	}
+
+	private String responseBody(Endpoint endpoint, HttpExchange exchange) {
+		switch (endpoint) {
+			case START_LAUNCH:
+				return "{\"id\":\"" + nextId("launch_") + "\",\"number\":1}";
+			case START_ITEM:
+				String itemId = nextId("item_");
+				return "{\"id\":\"" + itemId + "\",\"uniqueId\":\"" + itemId + "\"}";
+			case FINISH_LAUNCH:
+			case FINISH_ITEM:
+				return "{\"message\":\"OK\"}";
+			case LOG:
+				String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+				return contentType != null && contentType.startsWith("multipart") ?
+						"{\"responses\":[]}" :
+						"{\"id\":\"" + nextId("log_") + "\"}";
+			default:
+				return "{}";
+		}
+	}
+
+	private String nextId(String prefix) {
+		return prefix + ids.incrementAndGet() + "_" + UUID.randomUUID();
+	}
+
+	private static long drain(InputStream is) throws IOException {
+		byte[] buffer = new byte[8192];
+		long size = 0;
+		int read;
+		while ((read = is.read(buffer)) >= 0) {
+			size += read;
+		}
+		return size;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			Endpoint endpoint = endpoint(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+			long number = requests.get(endpoint).incrementAndGet();
+			payloads.get(endpoint).addAndGet(drain(exchange.getRequestBody()));
+			long delay = latency;
+			if (delay > 0) {
+				Thread.sleep(delay);
+			}
+			int every = errorEvery;
+			boolean error = every > 0 && errorEndpoints.contains(endpoint) && number % every == 0;
+			if (error) {
+				errors.get(endpoint).incrementAndGet();
+			}
+			byte[] body = (error ? ERROR_RESPONSE : responseBody(endpoint, exchange)).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(error ? 500 : (endpoint == Endpoint.START_LAUNCH || endpoint == Endpoint.START_ITEM ? 201 : 200),
+					body.length
+			);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(body);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			exchange.close();
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}